@@ -1,15 +1,15 @@
 package com.example.scrapyard;
 
 import com.netflix.discovery.EurekaClient;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class ScrapyardApiApplication {
 
 	@Autowired
@@ -18,10 +18,7 @@ public class ScrapyardApiApplication {
 
 	@Value("${spring.application.name}")
 	private String appName;
-	@Bean
-	public ModelMapper modelMapper() {
-		return new ModelMapper();
-	}
+
 	public static void main(String[] args) {
 		SpringApplication.run(ScrapyardApiApplication.class, args);
 	}
@@ -1,11 +1,17 @@
 package com.example.scrapyard.api;
 
+import com.example.scrapyard.api.exceptions.CustomAuthException;
 import com.example.scrapyard.api.exceptions.UsernameExistsException;
+import com.example.scrapyard.auth.JwtClaimsCache;
 import com.example.scrapyard.auth.JwtGenerator;
+import com.example.scrapyard.auth.TokenRevocationList;
+import com.example.scrapyard.config.Bulkhead;
 import com.example.scrapyard.domain.AuthResponseDTO;
 import com.example.scrapyard.domain.LoginDTO;
 import com.example.scrapyard.domain.RegisterDTO;
+import com.example.scrapyard.domain.RevokeTokenDTO;
 import com.example.scrapyard.service.CustomUserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -17,16 +23,24 @@ import org.springframework.web.bind.annotation.*;
 @Tag(name = "Authorization Controller", description = "Allows to perform JWT auth operations.")
 @RestController
 @RequestMapping("/auth")
+@Bulkhead(Bulkhead.AUTH)
 public class AuthController {
+    private static final String BEARER_PREFIX = "Bearer ";
+
     private final CustomUserDetailsServiceImpl userService;
     private final AuthenticationManager authenticationManager;
 
     private final JwtGenerator jwtGenerator;
+    private final JwtClaimsCache jwtClaimsCache;
+    private final TokenRevocationList tokenRevocationList;
 
-    public AuthController(CustomUserDetailsServiceImpl userService, AuthenticationManager authenticationManager, JwtGenerator jwtGenerator) {
+    public AuthController(CustomUserDetailsServiceImpl userService, AuthenticationManager authenticationManager, JwtGenerator jwtGenerator,
+                          JwtClaimsCache jwtClaimsCache, TokenRevocationList tokenRevocationList) {
         this.userService = userService;
         this.authenticationManager = authenticationManager;
         this.jwtGenerator = jwtGenerator;
+        this.jwtClaimsCache = jwtClaimsCache;
+        this.tokenRevocationList = tokenRevocationList;
     }
 
     @PostMapping("register")
@@ -37,14 +51,32 @@ public class AuthController {
 
     @PostMapping("login")
     public ResponseEntity<AuthResponseDTO> login(@RequestBody LoginDTO loginDTO) {
+        // the provider loads the user once and returns its authorities with the authentication
         Authentication auth = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        loginDTO.getUsername(),
-                        loginDTO.getPassword(),
-                        userService.loadUserByUsername(loginDTO.getUsername()).getAuthorities()));
+                new UsernamePasswordAuthenticationToken(loginDTO.getUsername(), loginDTO.getPassword()));
 
         SecurityContextHolder.getContext().setAuthentication(auth);
         String token = jwtGenerator.generateToken(auth);
         return ResponseEntity.ok(new AuthResponseDTO(token));
     }
+
+    // revokes the bearer token of the request, JwtAuthenticationFilter has already rejected invalid ones
+    @PostMapping("logout")
+    public ResponseEntity<String> logout(@RequestHeader("Authorization") String authorization) throws CustomAuthException {
+        if (!authorization.startsWith(BEARER_PREFIX))
+            throw CustomAuthException.createWith("Missing bearer token");
+        revoke(authorization.substring(BEARER_PREFIX.length()));
+        return ResponseEntity.ok("Logged out.");
+    }
+
+    @PostMapping("revoke")
+    public ResponseEntity<String> revoke(@RequestBody RevokeTokenDTO revokeTokenDTO) throws CustomAuthException {
+        revoke(revokeTokenDTO.getToken());
+        return ResponseEntity.ok("Token revoked.");
+    }
+
+    private void revoke(String token) throws CustomAuthException {
+        Claims claims = jwtClaimsCache.getVerifiedClaims(token);
+        tokenRevocationList.revoke(jwtGenerator.getTokenId(claims), claims.getExpiration().toInstant());
+    }
 }
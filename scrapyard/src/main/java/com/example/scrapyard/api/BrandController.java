@@ -2,6 +2,7 @@ package com.example.scrapyard.api;
 
 import com.example.scrapyard.api.exceptions.BrandExistsException;
 import com.example.scrapyard.api.exceptions.BrandNotFoundException;
+import com.example.scrapyard.config.Bulkhead;
 import com.example.scrapyard.domain.BrandDTO;
 import com.example.scrapyard.model.Brand;
 import com.example.scrapyard.service.BrandService;
@@ -22,6 +23,7 @@ import java.util.UUID;
 @Tag(name = "Brand Controller", description = "Allows admins to modify brand information.")
 @RestController
 @RequestMapping(path = "/brand")
+@Bulkhead(Bulkhead.BRAND_ADMIN)
 public class BrandController {
     private final BrandService brandService;
 
@@ -1,35 +1,69 @@
 package com.example.scrapyard.api;
 
+import com.example.scrapyard.api.exceptions.BatchTooLargeException;
 import com.example.scrapyard.api.exceptions.BrandNotFoundException;
+import com.example.scrapyard.api.exceptions.CarIntakeFullException;
 import com.example.scrapyard.api.exceptions.CarNotFoundException;
+import com.example.scrapyard.api.exceptions.ChangesExpiredException;
 import com.example.scrapyard.api.exceptions.CustomAuthException;
+import com.example.scrapyard.api.exceptions.InvalidCursorException;
+import com.example.scrapyard.config.Bulkhead;
+import com.example.scrapyard.domain.CarBatchResponse;
+import com.example.scrapyard.domain.CarChangeToken;
+import com.example.scrapyard.domain.CarChanges;
+import com.example.scrapyard.domain.CarCursor;
 import com.example.scrapyard.domain.CarDTO;
+import com.example.scrapyard.domain.CarFilter;
+import com.example.scrapyard.domain.CarLookupResponse;
+import com.example.scrapyard.domain.CarMapper;
+import com.example.scrapyard.domain.CarIntakeStatus;
+import com.example.scrapyard.domain.CarPage;
+import com.example.scrapyard.domain.CarPriceStats;
 import com.example.scrapyard.domain.CarResponse;
+import com.example.scrapyard.domain.PriceStatsGrouping;
 import com.example.scrapyard.model.Car;
+import com.example.scrapyard.service.CarIntakeService;
 import com.example.scrapyard.service.CarService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import jakarta.validation.Valid;
-import org.modelmapper.ModelMapper;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.util.*;
 
 @Tag(name = "Scrapyard", description = "the Scrapyard API.")
 @RestController
 @RequestMapping(path = "/car")
+@Bulkhead(Bulkhead.CAR_READ)
 public class CarController {
-    private final ModelMapper modelMapper;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_BATCH_SIZE = 5000;
+    private static final int MAX_LOOKUP_SIZE = 1000;
+
+    private final CarMapper carMapper;
     private final CarService carService;
-    public CarController(CarService carService, ModelMapper modelMapper) {
+    private final CarIntakeService carIntakeService;
+    private final ObjectWriter carWriter;
+    public CarController(CarService carService, CarIntakeService carIntakeService, CarMapper carMapper, ObjectMapper objectMapper) {
         this.carService = carService;
-        this.modelMapper = modelMapper;
+        this.carIntakeService = carIntakeService;
+        this.carMapper = carMapper;
+        this.carWriter = objectMapper.writerFor(CarResponse.class);
     }
 
     @Operation(
@@ -39,28 +73,141 @@ public class CarController {
             @ApiResponse(responseCode = "204", description = "successful operation"),
             @ApiResponse(responseCode = "400", description = "incorrect request")
     })
+    @Bulkhead(Bulkhead.CAR_WRITE)
     @PostMapping("")
     public ResponseEntity<URI> addNewCar(
-            @Valid @RequestBody CarDTO carDTO,
-            @RequestHeader("Authorization") String token) throws CustomAuthException, BrandNotFoundException {
+            @Valid @RequestBody CarDTO carDTO) throws CustomAuthException, BrandNotFoundException {
         URI location = ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").
-                buildAndExpand(carService.saveCar(carDTO, token).getId()).toUri();
+                buildAndExpand(carService.saveCar(carDTO).getId()).toUri();
         return ResponseEntity.created(location).build();
     }
 
     @Operation(
-            summary = "Fetch all cars.",
-            description = "fetches all car entities and their data from data source.")
+            summary = "Create new car asynchronously.",
+            description = "Validates the car, checks that its brand exists, assigns its id and queues it to be saved " +
+                    "in the background. The Location header points to the status of the queued car. The queue lives " +
+                    "on the instance that accepted the car: until the car is saved, and for a failed car at all, only " +
+                    "that instance knows its status.")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "successful operation")
+            @ApiResponse(responseCode = "202", description = "car accepted"),
+            @ApiResponse(responseCode = "400", description = "incorrect request"),
+            @ApiResponse(responseCode = "404", description = "Brand with provided name not found."),
+            @ApiResponse(responseCode = "429", description = "Too many cars waiting to be saved. Retry after the given number of seconds.")
+    })
+    @Bulkhead(Bulkhead.CAR_WRITE)
+    @PostMapping(path = "/async", produces = "application/json")
+    public ResponseEntity<CarIntakeStatus> addNewCarAsync(
+            @Valid @RequestBody CarDTO carDTO) throws CarIntakeFullException, BrandNotFoundException {
+        UUID id = carIntakeService.submit(carDTO);
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").buildAndExpand(id).toUri();
+        return ResponseEntity.accepted().location(location)
+                .body(new CarIntakeStatus(id, CarIntakeStatus.State.PENDING, List.of()));
+    }
+
+    @Operation(
+            summary = "Get the status of an asynchronously created car.",
+            description = "Returns whether the car is still queued, has been created or could not be saved. " +
+                    "Queued and failed cars are only known to the instance that accepted them, elsewhere they are 404.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "successful operation"),
+            @ApiResponse(responseCode = "400", description = "Bad request. Incorrect id format."),
+            @ApiResponse(responseCode = "404", description = "Car with provided id not found."),
+    })
+    @GetMapping(path = "/async/{id}", produces = "application/json")
+    public ResponseEntity<CarIntakeStatus> getCarIntakeStatus(
+            @PathVariable("id")
+            @Parameter(name = "id", description = "Car uuid", example = "dc84f2ca-5f63-46ec-8c62-7f59fbab5db7") UUID carId)
+            throws CarNotFoundException {
+        return ResponseEntity.ok(carIntakeService.getStatus(carId)
+                .orElseThrow(() -> CarNotFoundException.createWith(carId)));
+    }
+
+    @Operation(
+            summary = "Create many cars.",
+            description = "Adds every valid car of the list in one transaction. Invalid items are skipped " +
+                    "and reported by their position in the list.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "successful operation"),
+            @ApiResponse(responseCode = "400", description = "Bad request. Too many cars in one batch.")
+    })
+    @Bulkhead(Bulkhead.CAR_WRITE)
+    @PostMapping(path = "/batch", produces = "application/json")
+    public ResponseEntity<CarBatchResponse> addNewCars(
+            @RequestBody List<CarDTO> carDTOs) throws CustomAuthException, BatchTooLargeException {
+        if (carDTOs.size() > MAX_BATCH_SIZE)
+            throw BatchTooLargeException.createWith(carDTOs.size(), MAX_BATCH_SIZE);
+        return ResponseEntity.ok(carService.saveCars(carDTOs));
+    }
+
+    @Operation(
+            summary = "Fetch a page of cars.",
+            description = "fetches up to limit cars matching the given filters ordered by id, starting after the given cursor. " +
+                    "Pass the returned next cursor as after, with the same filters, to get the following page.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "successful operation"),
+            @ApiResponse(responseCode = "400", description = "Bad request. Incorrect cursor.")
     })
     @GetMapping(path = "", produces = "application/json")
-    public ResponseEntity<List<CarResponse>> getAllCars(@RequestHeader("guid") UUID guid) {
-        // map Car to Car DTO
-        List<CarResponse> carResponse = carService.getCars().stream()
-                .map(car -> modelMapper.map(car, CarResponse.class))
-                .toList();
-        return ResponseEntity.ok(carResponse);
+    public ResponseEntity<CarPage> getAllCars(
+            @RequestHeader("guid") UUID guid,
+            @RequestParam(name = "after", required = false)
+            @Parameter(name = "after", description = "Cursor returned as next by the previous page") String after,
+            @RequestParam(name = "limit", defaultValue = "" + DEFAULT_PAGE_SIZE)
+            @Parameter(name = "limit", description = "Page size, at most " + MAX_PAGE_SIZE) int limit,
+            @ParameterObject CarFilter filter)
+            throws InvalidCursorException {
+        UUID afterId = after == null ? null : CarCursor.decode(after);
+        Slice<CarResponse> cars = carService.getCars(afterId, Math.min(Math.max(limit, 1), MAX_PAGE_SIZE), filter);
+
+        List<CarResponse> carResponse = cars.getContent();
+        String next = cars.hasNext() ? CarCursor.encode(carResponse.get(carResponse.size() - 1).getId()) : null;
+        Map<String, Object> usedFilters = filter.usedFilters();
+        // counting is a scan over the matching rows, skip it for the plain listing
+        Long matched = usedFilters.isEmpty() ? null : carService.countCars(filter);
+        return ResponseEntity.ok(new CarPage(carResponse, next, usedFilters, matched));
+    }
+
+    @Operation(
+            summary = "Export all cars.",
+            description = "streams every car as newline delimited JSON, one car per line.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "successful operation")
+    })
+    @GetMapping(path = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportCars(@RequestHeader("guid") UUID guid) {
+        StreamingResponseBody body = out -> carService.forEachCar(car -> {
+            try {
+                out.write(carWriter.writeValueAsBytes(carMapper.toResponse(car)));
+                out.write('\n');
+            } catch (IOException e) {
+                // client went away, abort the export
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @Operation(
+            summary = "Get changes to cars.",
+            description = "Returns the cars created or changed and the ids of cars deleted after the given token, " +
+                    "at most limit changes, oldest first. Call without a token to get every car, then pass the " +
+                    "returned next token as since to get only what changed after that.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "successful operation"),
+            @ApiResponse(responseCode = "400", description = "Bad request. Incorrect token."),
+            @ApiResponse(responseCode = "410", description = "Token too old, deletes after it are no longer kept. " +
+                    "Fetch the changes again without a token.")
+    })
+    @GetMapping(path = "/changes", produces = "application/json")
+    public ResponseEntity<CarChanges> getCarChanges(
+            @RequestHeader("guid") UUID guid,
+            @RequestParam(name = "since", required = false)
+            @Parameter(name = "since", description = "Token returned as next by the previous call") String since,
+            @RequestParam(name = "limit", defaultValue = "" + DEFAULT_PAGE_SIZE)
+            @Parameter(name = "limit", description = "Number of changes, at most " + MAX_PAGE_SIZE) int limit)
+            throws InvalidCursorException, ChangesExpiredException {
+        Long sinceSeq = since == null ? null : CarChangeToken.decode(since);
+        return ResponseEntity.ok(carService.getChanges(sinceSeq, Math.min(Math.max(limit, 1), MAX_PAGE_SIZE)));
     }
 
     @Operation(
@@ -77,13 +224,30 @@ public class CarController {
             @PathVariable("id")
             @Parameter(name = "id", description = "Car uuid", example = "dc84f2ca-5f63-46ec-8c62-7f59fbab5db7") UUID carId)
             throws CarNotFoundException {
-        Optional<Car> retrievedCar = carService.getCarById(carId);
+        Optional<CarResponse> retrievedCar = carService.getCarById(carId);
 
         if (retrievedCar.isPresent())
-            return ResponseEntity.ok(modelMapper.map(retrievedCar.get(), CarResponse.class));
+            return ResponseEntity.ok(retrievedCar.get());
         else throw CarNotFoundException.createWith(carId);
     }
 
+    @Operation(
+            summary = "Get many cars by id.",
+            description = "Returns the cars with the given ids, in the order requested, and the ids that have no car. " +
+                    "Takes at most " + MAX_LOOKUP_SIZE + " ids.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "successful operation"),
+            @ApiResponse(responseCode = "400", description = "Bad request. Too many ids or incorrect id format.")
+    })
+    @PostMapping(path = "/lookup", produces = "application/json")
+    public ResponseEntity<CarLookupResponse> lookupCars(
+            @RequestHeader("guid") UUID guid,
+            @RequestBody List<UUID> carIds) throws BatchTooLargeException {
+        if (carIds.size() > MAX_LOOKUP_SIZE)
+            throw BatchTooLargeException.createWith(carIds.size(), MAX_LOOKUP_SIZE);
+        return ResponseEntity.ok(carService.getCarsByIds(carIds));
+    }
+
     @Operation(
             summary = "Get a sum of all cars' prices.",
             description = "Returns a number which is a sum of all cars' prices.")
@@ -91,6 +255,7 @@ public class CarController {
             @ApiResponse(responseCode = "200", description = "successful operation"),
             @ApiResponse(responseCode = "400", description = "Bad request."),
     })
+    @Bulkhead(Bulkhead.ANALYTICS)
     @GetMapping(path = "/sum")
     public ResponseEntity<Map<String,Double>> sumAllCars(@RequestHeader("guid") UUID guid) {
         double carResponse = carService.getCarPricesSum();
@@ -99,6 +264,46 @@ public class CarController {
         return ResponseEntity.ok(response);
     }
 
+    @Operation(
+            summary = "Get price statistics per brand.",
+            description = "Returns count, sum, min, max and average car price for every brand.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "successful operation"),
+            @ApiResponse(responseCode = "400", description = "Bad request."),
+    })
+    @Bulkhead(Bulkhead.ANALYTICS)
+    @GetMapping(path = "/stats/brand")
+    public ResponseEntity<List<CarPriceStats>> priceStatsByBrand(@RequestHeader("guid") UUID guid) {
+        return ResponseEntity.ok(carService.getPriceStats(PriceStatsGrouping.BRAND));
+    }
+
+    @Operation(
+            summary = "Get price statistics per model.",
+            description = "Returns count, sum, min, max and average car price for every model.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "successful operation"),
+            @ApiResponse(responseCode = "400", description = "Bad request."),
+    })
+    @Bulkhead(Bulkhead.ANALYTICS)
+    @GetMapping(path = "/stats/model")
+    public ResponseEntity<List<CarPriceStats>> priceStatsByModel(@RequestHeader("guid") UUID guid) {
+        return ResponseEntity.ok(carService.getPriceStats(PriceStatsGrouping.MODEL));
+    }
+
+    @Operation(
+            summary = "Get price statistics per decade of production.",
+            description = "Returns count, sum, min, max and average car price for every decade, " +
+                    "grouped by the first year of the decade.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "successful operation"),
+            @ApiResponse(responseCode = "400", description = "Bad request."),
+    })
+    @Bulkhead(Bulkhead.ANALYTICS)
+    @GetMapping(path = "/stats/decade")
+    public ResponseEntity<List<CarPriceStats>> priceStatsByDecade(@RequestHeader("guid") UUID guid) {
+        return ResponseEntity.ok(carService.getPriceStats(PriceStatsGrouping.DECADE));
+    }
+
     @Operation(
             summary = "Delete a car by id.",
             description = "Deletes and returns a car with given id.")
@@ -107,6 +312,7 @@ public class CarController {
             @ApiResponse(responseCode = "400", description = "Bad request. Incorrect id format."),
             @ApiResponse(responseCode = "404", description = "Car with provided id not found."),
     })
+    @Bulkhead(Bulkhead.CAR_WRITE)
     @DeleteMapping(path = "{id}")
     public ResponseEntity<?> deleteCar(
             @RequestHeader("guid") UUID guid,
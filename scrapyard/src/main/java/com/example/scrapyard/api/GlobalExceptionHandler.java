@@ -32,7 +32,13 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
             UsernameExistsException.class,
             DatabaseException.class,
             BrandNotFoundException.class,
-            BrandExistsException.class
+            BrandExistsException.class,
+            InvalidCursorException.class,
+            ChangesExpiredException.class,
+            BatchTooLargeException.class,
+            CarIntakeFullException.class,
+            PasswordHashingBusyException.class,
+            BulkheadFullException.class
     })
     @Nullable
     public final ResponseEntity<ApiError> handleCustomException(Exception ex, WebRequest request) {
@@ -47,6 +53,27 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         } else if (ex instanceof BrandExistsException bee) {
             HttpStatus status = HttpStatus.BAD_REQUEST;
             return handleRegularException(bee, headers, status, request);
+        } else if (ex instanceof InvalidCursorException ice) {
+            HttpStatus status = HttpStatus.BAD_REQUEST;
+            return handleRegularException(ice, headers, status, request);
+        } else if (ex instanceof ChangesExpiredException cee) {
+            HttpStatus status = HttpStatus.GONE;
+            return handleRegularException(cee, headers, status, request);
+        } else if (ex instanceof BatchTooLargeException btle) {
+            HttpStatus status = HttpStatus.BAD_REQUEST;
+            return handleRegularException(btle, headers, status, request);
+        } else if (ex instanceof CarIntakeFullException cife) {
+            HttpStatus status = HttpStatus.TOO_MANY_REQUESTS;
+            headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(cife.getRetryAfterSeconds()));
+            return handleRegularException(cife, headers, status, request);
+        } else if (ex instanceof PasswordHashingBusyException phbe) {
+            HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+            headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(phbe.getRetryAfterSeconds()));
+            return handleRegularException(phbe, headers, status, request);
+        } else if (ex instanceof BulkheadFullException bfe) {
+            HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+            headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(bfe.getRetryAfterSeconds()));
+            return handleRegularException(bfe, headers, status, request);
         } else if (ex instanceof UsernameExistsException usernamee) {
             HttpStatus status = HttpStatus.BAD_REQUEST;
             return handleRegularException(usernamee, headers, status, request);
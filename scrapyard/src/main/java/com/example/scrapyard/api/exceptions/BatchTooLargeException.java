@@ -0,0 +1,22 @@
+package com.example.scrapyard.api.exceptions;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class BatchTooLargeException extends Exception{
+    final int size;
+    final int maxSize;
+
+    public static BatchTooLargeException createWith(int size, int maxSize) {
+        return new BatchTooLargeException(size, maxSize);
+    }
+
+    @Override
+    public String getMessage() {
+        return "Batch of " + size + " items exceeds the limit of " + maxSize;
+    }
+}
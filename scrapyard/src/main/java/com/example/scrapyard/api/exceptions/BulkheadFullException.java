@@ -0,0 +1,22 @@
+package com.example.scrapyard.api.exceptions;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class BulkheadFullException extends Exception{
+    final String group;
+    final int retryAfterSeconds;
+
+    public static BulkheadFullException createWith(String group, int retryAfterSeconds) {
+        return new BulkheadFullException(group, retryAfterSeconds);
+    }
+
+    @Override
+    public String getMessage() {
+        return "Too many " + group + " requests in progress, retry in " + retryAfterSeconds + " seconds";
+    }
+}
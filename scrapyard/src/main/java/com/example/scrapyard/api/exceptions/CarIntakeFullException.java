@@ -0,0 +1,21 @@
+package com.example.scrapyard.api.exceptions;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class CarIntakeFullException extends Exception{
+    final int retryAfterSeconds;
+
+    public static CarIntakeFullException createWith(int retryAfterSeconds) {
+        return new CarIntakeFullException(retryAfterSeconds);
+    }
+
+    @Override
+    public String getMessage() {
+        return "Too many cars waiting to be saved, retry in " + retryAfterSeconds + " seconds";
+    }
+}
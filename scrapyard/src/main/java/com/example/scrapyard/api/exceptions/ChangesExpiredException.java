@@ -0,0 +1,21 @@
+package com.example.scrapyard.api.exceptions;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class ChangesExpiredException extends Exception{
+    final String token;
+
+    public static ChangesExpiredException createWith(String token) {
+        return new ChangesExpiredException(token);
+    }
+
+    @Override
+    public String getMessage() {
+        return "Changes after token '" + token + "' are no longer kept, fetch the changes again without a token";
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.scrapyard.api.exceptions;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class InvalidCursorException extends Exception{
+    final String cursor;
+
+    public static InvalidCursorException createWith(String cursor) {
+        return new InvalidCursorException(cursor);
+    }
+
+    @Override
+    public String getMessage() {
+        return "Cursor '" + cursor + "' is not valid";
+    }
+}
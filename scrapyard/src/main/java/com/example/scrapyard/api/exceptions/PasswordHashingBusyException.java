@@ -0,0 +1,22 @@
+package com.example.scrapyard.api.exceptions;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+// unchecked, it is thrown from inside PasswordEncoder calls made by Spring Security
+@Getter
+@Setter
+@AllArgsConstructor
+public class PasswordHashingBusyException extends RuntimeException{
+    final int retryAfterSeconds;
+
+    public static PasswordHashingBusyException createWith(int retryAfterSeconds) {
+        return new PasswordHashingBusyException(retryAfterSeconds);
+    }
+
+    @Override
+    public String getMessage() {
+        return "Too many logins in progress, retry in " + retryAfterSeconds + " seconds";
+    }
+}
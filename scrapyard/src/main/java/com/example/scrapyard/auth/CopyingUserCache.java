@@ -0,0 +1,41 @@
+package com.example.scrapyard.auth;
+
+import org.springframework.cache.Cache;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * Short-lived cache of loaded users for DaoAuthenticationProvider. It stores and hands out copies, because the
+ * AuthenticationManager erases the password of the principal it returns after every successful login and
+ * would otherwise empty the cached entry as well.
+ */
+public class CopyingUserCache implements UserCache {
+    private final Cache cache;
+
+    public CopyingUserCache(Cache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public UserDetails getUserFromCache(String username) {
+        UserDetails cached = cache.get(username, UserDetails.class);
+        return cached == null ? null : copy(cached);
+    }
+
+    @Override
+    public void putUserInCache(UserDetails user) {
+        cache.put(user.getUsername(), copy(user));
+    }
+
+    @Override
+    public void removeUserFromCache(String username) {
+        cache.evict(username);
+    }
+
+    private static UserDetails copy(UserDetails user) {
+        if (user instanceof UserPrincipal principal)
+            return new UserPrincipal(principal.getId(), principal.getUsername(), principal.getPassword(), principal.getAuthorities());
+        return User.withUserDetails(user).build();
+    }
+}
@@ -2,6 +2,7 @@ package com.example.scrapyard.auth;
 
 import com.example.scrapyard.api.exceptions.ApiError;
 import com.example.scrapyard.api.exceptions.CustomAuthException;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -14,7 +15,6 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.util.StringUtils;
@@ -33,18 +33,28 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private final JwtGenerator jwtGenerator;
 
+    @Autowired
+    private final JwtClaimsCache jwtClaimsCache;
+
+    @Autowired
+    private final TokenRevocationList tokenRevocationList;
+
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request,
                                     @NonNull HttpServletResponse response,
                                     @NonNull FilterChain filterChain) throws ServletException, IOException, AuthenticationException {
         String token = getJwtFromRequest(request);
         try {
-            if (StringUtils.hasText(token) && jwtGenerator.tokenIsValid(token)) {
-                String username = jwtGenerator.getUsernameFromJwt(token);
+            if (StringUtils.hasText(token)) {
+                // the token is parsed and verified at most once, repeated tokens come from the cache
+                Claims claims = jwtClaimsCache.getVerifiedClaims(token);
+                if (tokenRevocationList.isRevoked(jwtGenerator.getTokenId(claims), claims.getExpiration().toInstant()))
+                    throw CustomAuthException.createWith("JWT was revoked");
+                String username = claims.getSubject();
                 List<SimpleGrantedAuthority> authorities =
-                        jwtGenerator.getAuthoritiesFromJwt(token).stream()
+                        jwtGenerator.getAuthorities(claims).stream()
                         .map(SimpleGrantedAuthority::new).toList();
-                UserDetails userDetails = new User(username, "password", authorities);
+                UserDetails userDetails = new UserPrincipal(jwtGenerator.getUserId(claims), username, "password", authorities);
                 UsernamePasswordAuthenticationToken authenticationToken =
                         new UsernamePasswordAuthenticationToken(userDetails, userDetails.getAuthorities(), userDetails.getAuthorities());
                 authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
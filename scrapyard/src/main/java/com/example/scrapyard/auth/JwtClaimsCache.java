@@ -0,0 +1,88 @@
+package com.example.scrapyard.auth;
+
+import com.example.scrapyard.api.exceptions.CustomAuthException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verified claims of recently seen tokens, so repeated requests with the same bearer token skip the
+ * signature check. Entries are keyed by a digest of the token and expire together with the token.
+ */
+@Component
+public class JwtClaimsCache {
+    private final JwtGenerator jwtGenerator;
+    private final Cache<String, Claims> claims;
+    private final Timer verification;
+
+    public JwtClaimsCache(JwtGenerator jwtGenerator, MeterRegistry meterRegistry,
+                          @Value("${scrapyard.auth.claims-cache.max-size:10000}") long maxSize) {
+        this.jwtGenerator = jwtGenerator;
+        this.claims = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new UntilTokenExpires())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, claims, "jwtClaims");
+        this.verification = Timer.builder("scrapyard.auth.jwt.verification")
+                .description("Time spent parsing and verifying tokens that were not cached")
+                .register(meterRegistry);
+    }
+
+    public Claims getVerifiedClaims(String token) throws CustomAuthException {
+        String key = digest(token);
+        Claims cached = claims.getIfPresent(key);
+        if (cached != null)
+            return cached;
+        long started = System.nanoTime();
+        try {
+            Claims verified = jwtGenerator.parseClaims(token);
+            claims.put(key, verified);
+            return verified;
+        } finally {
+            verification.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            // every JVM is required to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class UntilTokenExpires implements Expiry<String, Claims> {
+        @Override
+        public long expireAfterCreate(String key, Claims value, long currentTime) {
+            Date expiration = value.getExpiration();
+            long millis = expiration == null ? SecurityConstants.JWT_EXPIRATION : expiration.getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(millis, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
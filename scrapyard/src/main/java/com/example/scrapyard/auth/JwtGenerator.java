@@ -1,6 +1,8 @@
 package com.example.scrapyard.auth;
 
 import com.example.scrapyard.api.exceptions.CustomAuthException;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import org.springframework.security.core.Authentication;
@@ -12,6 +14,9 @@ import java.util.*;
 
 @Component
 public class JwtGenerator {
+    private static final String AUTHORITIES_CLAIM = "authorities";
+    private static final String USER_ID_CLAIM = "uid";
+
     //TODO: move jwt secret to config service
     public String generateToken(Authentication authentication){
         String username = authentication.getName();
@@ -19,11 +24,15 @@ public class JwtGenerator {
         Date expireDate = new Date(currentDate.getTime() + SecurityConstants.JWT_EXPIRATION);
        String[] authorities = authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).toArray(String[]::new);
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .setSubject(username)
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(currentDate)
                 .setExpiration(expireDate)
-                .claim("authorities", authorities)
+                .claim(AUTHORITIES_CLAIM, authorities);
+        if (authentication.getPrincipal() instanceof UserPrincipal principal && principal.getId() != null)
+            builder.claim(USER_ID_CLAIM, principal.getId().toString());
+        return builder
                 .signWith(SignatureAlgorithm.HS512, SecurityConstants.JWT_SECRET)
                 .compact();
     }
@@ -31,6 +40,19 @@ public class JwtGenerator {
         return createTestToken(username, false);
     }
 
+    public String createTestToken(String username, UUID userId){
+        Date currentDate = new Date();
+        return Jwts.builder()
+                .setSubject(username)
+                .setId(UUID.randomUUID().toString())
+                .setIssuedAt(currentDate)
+                .setExpiration(new Date(currentDate.getTime() + SecurityConstants.JWT_EXPIRATION))
+                .claim(AUTHORITIES_CLAIM, new String[]{new SimpleGrantedAuthority("USER").toString()})
+                .claim(USER_ID_CLAIM, userId.toString())
+                .signWith(SignatureAlgorithm.HS512, SecurityConstants.JWT_SECRET)
+                .compact();
+    }
+
     public String createTestToken(String username, boolean forAdmin){
         Date currentDate = new Date();
         Date expireDate = new Date(currentDate.getTime() + SecurityConstants.JWT_EXPIRATION);
@@ -41,34 +63,42 @@ public class JwtGenerator {
 
         return Jwts.builder()
                 .setSubject(username)
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(currentDate)
                 .setExpiration(expireDate)
-                .claim("authorities", authorities)
+                .claim(AUTHORITIES_CLAIM, authorities)
                 .signWith(SignatureAlgorithm.HS512, SecurityConstants.JWT_SECRET)
                 .compact();
     }
 
-    public String getUsernameFromJwt(String token){
-       return Jwts.parser()
-                .setSigningKey(SecurityConstants.JWT_SECRET)
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+    // verifies the signature and expiry once and returns all claims of the token
+    public Claims parseClaims(String token) throws CustomAuthException {
+        try {
+            return Jwts.parser()
+                    .setSigningKey(SecurityConstants.JWT_SECRET)
+                    .parseClaimsJws(token)
+                    .getBody();
+        }catch (Exception ex){
+            throw CustomAuthException.createWith("JWT was expired or incorrect");
+        }
     }
-    public ArrayList<String> getAuthoritiesFromJwt(String token){
-        return (ArrayList<String>) Jwts.parser()
-                .setSigningKey(SecurityConstants.JWT_SECRET)
-                .parseClaimsJws(token)
-                .getBody()
-                .get("authorities");
+
+    @SuppressWarnings("unchecked")
+    public List<String> getAuthorities(Claims claims) {
+        return (List<String>) claims.get(AUTHORITIES_CLAIM);
     }
 
-    public boolean tokenIsValid(String token) throws CustomAuthException {
+    // null for tokens issued before tokens had an id, those cannot be revoked
+    public UUID getTokenId(Claims claims) {
         try {
-            Jwts.parser().setSigningKey(SecurityConstants.JWT_SECRET).parseClaimsJws(token);
-            return true;
-        }catch (Exception ex){
-            throw CustomAuthException.createWith("JWT was expired or incorrect");
+            return claims.getId() == null ? null : UUID.fromString(claims.getId());
+        } catch (IllegalArgumentException e) {
+            return null;
         }
     }
+
+    public UUID getUserId(Claims claims) {
+        String userId = claims.get(USER_ID_CLAIM, String.class);
+        return userId == null ? null : UUID.fromString(userId);
+    }
 }
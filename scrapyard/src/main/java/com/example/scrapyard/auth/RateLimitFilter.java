@@ -0,0 +1,140 @@
+package com.example.scrapyard.auth;
+
+import com.example.scrapyard.api.exceptions.ApiError;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.gson.Gson;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Token-bucket rate limiting, one bucket per route and client. Clients are the authenticated user (the JWT
+ * subject) or, for routes keyed by IP and anonymous requests, the client address, so it has to run after
+ * JwtAuthenticationFilter. Buckets are updated with compare-and-set and dropped after being idle for a while.
+ * Throttled requests get 429 with Retry-After set to the time until the next token.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final String DEFAULT_ROUTE = "default";
+
+    private record MatchedRoute(String name, RateLimitProperties.Limit limit, RateLimitProperties.KeyBy keyBy,
+                                AntPathRequestMatcher matcher, Counter throttled) {}
+
+    private final Gson gson = new Gson();
+    private final boolean enabled;
+    private final List<MatchedRoute> routes;
+    private final MatchedRoute defaultRoute;
+    private final Cache<String, TokenBucket> buckets;
+
+    public RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        this.routes = properties.getRoutes().stream()
+                .map(route -> new MatchedRoute(route.getName(), route, route.getKeyBy(),
+                        new AntPathRequestMatcher(route.getPattern(), route.getMethod()),
+                        throttledCounter(meterRegistry, route.getName())))
+                .toList();
+        this.defaultRoute = new MatchedRoute(DEFAULT_ROUTE, properties.getDefaultLimit(), RateLimitProperties.KeyBy.USER,
+                null, throttledCounter(meterRegistry, DEFAULT_ROUTE));
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(properties.getIdleTimeout())
+                .maximumSize(properties.getMaxBuckets())
+                .build();
+        Gauge.builder("scrapyard.ratelimit.buckets", buckets, Cache::estimatedSize)
+                .description("Rate limit buckets of recently active clients")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        MatchedRoute route = match(request);
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.get(route.name() + "|" + clientKey(request, route.keyBy()),
+                key -> new TokenBucket(route.limit().getCapacity(), now));
+        long waitNanos = bucket.tryTake(route.limit(), now);
+        if (waitNanos > 0) {
+            route.throttled().increment();
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.setContentType("application/json");
+            response.getWriter().write(gson.toJson(new ApiError(Collections.singletonList(
+                    "Too many requests, retry after " + retryAfterSeconds + " seconds"))));
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private MatchedRoute match(HttpServletRequest request) {
+        for (MatchedRoute route : routes)
+            if (route.matcher().matches(request))
+                return route;
+        return defaultRoute;
+    }
+
+    private static String clientKey(HttpServletRequest request, RateLimitProperties.KeyBy keyBy) {
+        if (keyBy == RateLimitProperties.KeyBy.USER) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication != null && authentication.isAuthenticated()
+                    && !(authentication instanceof AnonymousAuthenticationToken))
+                return "user:" + authentication.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private static Counter throttledCounter(MeterRegistry meterRegistry, String route) {
+        return Counter.builder("scrapyard.ratelimit.throttled")
+                .tag("route", route)
+                .description("Requests rejected with 429 by the rate limiter")
+                .register(meterRegistry);
+    }
+
+    static final class TokenBucket {
+        private record State(double tokens, long refilledAt) {}
+
+        private final AtomicReference<State> state;
+
+        TokenBucket(long capacity, long now) {
+            this.state = new AtomicReference<>(new State(capacity, now));
+        }
+
+        // 0 when a token was taken, otherwise the nanoseconds until the next token is available
+        long tryTake(RateLimitProperties.Limit limit, long now) {
+            while (true) {
+                State current = state.get();
+                // another request may have refilled with a later timestamp than ours
+                long refilledAt = Math.max(now, current.refilledAt());
+                double refilled = (refilledAt - current.refilledAt()) / 1e9 * limit.getRefillPerSecond();
+                double tokens = Math.min(limit.getCapacity(), current.tokens() + refilled);
+                if (tokens < 1)
+                    return (long) Math.ceil((1 - tokens) / limit.getRefillPerSecond() * 1e9);
+                if (state.compareAndSet(current, new State(tokens - 1, refilledAt)))
+                    return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.scrapyard.auth;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// scrapyard.rate-limit.*, routes are matched in order and the first match wins
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "scrapyard.rate-limit")
+public class RateLimitProperties {
+    private boolean enabled = true;
+    // buckets not used for this long are dropped, a returning client starts with a full bucket
+    private Duration idleTimeout = Duration.ofMinutes(10);
+    private long maxBuckets = 100_000;
+    private Limit defaultLimit = new Limit();
+    private List<Route> routes = new ArrayList<>();
+
+    public enum KeyBy {
+        // the authenticated user, anonymous requests fall back to the client address
+        USER,
+        IP
+    }
+
+    @Getter
+    @Setter
+    public static class Limit {
+        private long capacity = 100;
+        private double refillPerSecond = 50;
+    }
+
+    @Getter
+    @Setter
+    public static class Route extends Limit {
+        private String name;
+        // any method when not set
+        private String method;
+        private String pattern;
+        private KeyBy keyBy = KeyBy.USER;
+    }
+}
@@ -1,7 +1,10 @@
 package com.example.scrapyard.auth;
 
 
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -26,17 +29,23 @@ public class SecurityConfig {
     }
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception{
+    public SecurityFilterChain filterChain(HttpSecurity http, RateLimitFilter rateLimitFilter) throws Exception{
         http.csrf(AbstractHttpConfigurer::disable)
                 .exceptionHandling(e -> e.authenticationEntryPoint(authEntryPoint))
                 .authorizeHttpRequests(req -> req
+                        // streamed responses were authorised on the initial dispatch
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                        .requestMatchers(antMatcher(HttpMethod.POST, "/auth/revoke")).hasAnyAuthority("ADMIN")
                         .requestMatchers(antMatcher("/auth/**")).permitAll()
                         .requestMatchers(antMatcher("/env/**")).permitAll()
-                        .requestMatchers(antMatcher("/actuator/**")).permitAll()
+                        // health is for probes, metrics show login, rate limit and revocation counters
+                        .requestMatchers(antMatcher("/actuator/health/**")).permitAll()
+                        .requestMatchers(antMatcher("/actuator/**")).hasAnyAuthority("ADMIN")
                         .requestMatchers(antMatcher("/swagger-ui/**")).permitAll()
                         .requestMatchers(antMatcher("/api-docs/**")).permitAll()
                         .requestMatchers(antMatcher("/autoconfig/**")).permitAll()
                         .requestMatchers((antMatcher(HttpMethod.GET, "/car/sum"))).hasAnyAuthority("ADMIN")
+                        .requestMatchers((antMatcher(HttpMethod.GET, "/car/stats/**"))).hasAnyAuthority("ADMIN")
                         .requestMatchers((antMatcher(HttpMethod.GET,"/car/**"))).hasAnyAuthority("USER")
                         .requestMatchers((antMatcher(HttpMethod.POST,"/car/**"))).hasAnyAuthority("USER")
                         .requestMatchers((antMatcher(HttpMethod.PUT,"/car/**"))).hasAnyAuthority("USER")
@@ -47,6 +56,8 @@ public class SecurityConfig {
                         SessionCreationPolicy.STATELESS))
                 .httpBasic(Customizer.withDefaults());
         http.addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
+        // limits are per user, so the token has to be verified first
+        http.addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class);
         return http.build();
     }
 
@@ -54,4 +65,25 @@ public class SecurityConfig {
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
         return new JwtAuthenticationFilter();
     }
+
+    @Bean
+    public RateLimitFilter rateLimitFilter(RateLimitProperties rateLimitProperties, MeterRegistry meterRegistry) {
+        return new RateLimitFilter(rateLimitProperties, meterRegistry);
+    }
+
+    // both filters run inside the security chain, as beans Boot would also put them in front of it
+    @Bean
+    public FilterRegistrationBean<JwtAuthenticationFilter> jwtAuthenticationFilterRegistration(
+            JwtAuthenticationFilter jwtAuthenticationFilter) {
+        FilterRegistrationBean<JwtAuthenticationFilter> registration = new FilterRegistrationBean<>(jwtAuthenticationFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter rateLimitFilter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(rateLimitFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
 }
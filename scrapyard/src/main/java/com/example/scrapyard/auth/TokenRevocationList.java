@@ -0,0 +1,129 @@
+package com.example.scrapyard.auth;
+
+import com.example.scrapyard.model.RevokedToken;
+import com.example.scrapyard.repository.RevokedTokenRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Ids (jti) of revoked tokens that have not expired yet, grouped in buckets by expiry time. A lookup only
+ * touches the bucket of the token's own expiry, and whole buckets are dropped once their tokens can no longer
+ * pass the expiry check, so the list never holds more than one token lifetime of revocations.
+ * Revocations are persisted and loaded in the background after startup. Revocations written by other instances
+ * are picked up by polling for rows revoked since the previous poll; the window reaches back by an overlap so rows
+ * committed late, or stamped by a clock that runs behind, are not missed. Adding a token twice is harmless.
+ */
+@Slf4j
+@Component
+public class TokenRevocationList {
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long bucketMillis;
+    private final Duration pollOverlap;
+    // rows revoked after this are fetched by the next poll
+    private volatile Instant pollFrom;
+    // bucket number (expiry / bucket width) -> revoked token ids expiring in that bucket
+    private final Map<Long, Set<UUID>> buckets = new ConcurrentHashMap<>();
+
+    public TokenRevocationList(RevokedTokenRepository revokedTokenRepository, PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${scrapyard.auth.revocation.bucket-width:5m}") Duration bucketWidth,
+                               @Value("${scrapyard.auth.revocation.poll-overlap:30s}") Duration pollOverlap) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.bucketMillis = bucketWidth.toMillis();
+        this.pollOverlap = pollOverlap;
+        this.pollFrom = Instant.now().minus(pollOverlap);
+        Gauge.builder("scrapyard.auth.revoked.tokens", buckets, b -> b.values().stream().mapToInt(Set::size).sum())
+                .description("Revoked tokens that have not expired yet")
+                .register(meterRegistry);
+    }
+
+    public boolean isRevoked(UUID tokenId, Instant expiresAt) {
+        if (tokenId == null || expiresAt == null)
+            return false;
+        Set<UUID> bucket = buckets.get(bucketOf(expiresAt));
+        return bucket != null && bucket.contains(tokenId);
+    }
+
+    public void revoke(UUID tokenId, Instant expiresAt) {
+        if (tokenId == null || expiresAt == null || !expiresAt.isAfter(Instant.now()))
+            return;
+        revokedTokenRepository.save(RevokedToken.builder().tokenId(tokenId).expiresAt(expiresAt).revokedAt(Instant.now()).build());
+        add(tokenId, expiresAt);
+    }
+
+    // loading can take a moment with many revocations, boot does not wait for it
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadInBackground() {
+        Thread loader = new Thread(this::load, "token-revocation-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    @Scheduled(fixedDelayString = "${scrapyard.auth.revocation.poll-interval-ms:5000}")
+    public void poll() {
+        Instant started = Instant.now();
+        try {
+            long added = transactionTemplate.execute(status -> {
+                try (Stream<RevokedToken> revoked =
+                             revokedTokenRepository.streamByRevokedAtAfterAndExpiresAtAfter(pollFrom, started)) {
+                    return revoked.mapToLong(token -> add(token.getTokenId(), token.getExpiresAt()) ? 1 : 0).sum();
+                }
+            });
+            pollFrom = started.minus(pollOverlap);
+            if (added > 0)
+                log.info("Picked up {} tokens revoked on other instances", added);
+        } catch (RuntimeException e) {
+            log.error("Could not poll revoked tokens", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${scrapyard.auth.revocation.purge-interval-ms:300000}")
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        // a bucket is dropped only when its last possible expiry has passed
+        buckets.keySet().removeIf(bucket -> (bucket + 1) * bucketMillis <= now.toEpochMilli());
+        transactionTemplate.executeWithoutResult(status -> revokedTokenRepository.deleteExpired(now));
+    }
+
+    private void load() {
+        try {
+            long loaded = transactionTemplate.execute(status -> {
+                try (Stream<RevokedToken> revoked = revokedTokenRepository.streamByExpiresAtAfter(Instant.now())) {
+                    return revoked.mapToLong(token -> {
+                        add(token.getTokenId(), token.getExpiresAt());
+                        return 1;
+                    }).sum();
+                }
+            });
+            log.info("Loaded {} revoked tokens", loaded);
+        } catch (RuntimeException e) {
+            log.error("Could not load revoked tokens", e);
+        }
+    }
+
+    private boolean add(UUID tokenId, Instant expiresAt) {
+        return buckets.computeIfAbsent(bucketOf(expiresAt), bucket -> ConcurrentHashMap.newKeySet()).add(tokenId);
+    }
+
+    private long bucketOf(Instant expiresAt) {
+        return expiresAt.toEpochMilli() / bucketMillis;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.scrapyard.auth;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+import java.util.UUID;
+
+// authenticated user together with its id, so writes can reference the user without looking it up
+@Getter
+public class UserPrincipal extends User {
+    // null for tokens issued before the id was added to them
+    private final UUID id;
+
+    public UserPrincipal(UUID id, String username, String password, Collection<? extends GrantedAuthority> authorities) {
+        super(username, password, authorities);
+        this.id = id;
+    }
+}
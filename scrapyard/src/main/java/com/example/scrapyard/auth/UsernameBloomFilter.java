@@ -0,0 +1,187 @@
+package com.example.scrapyard.auth;
+
+import com.example.scrapyard.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * In-memory Bloom filter of existing usernames. "Absent" is definite, so logins and registrations for unknown
+ * usernames can skip the user lookup; "present" may be a false positive and still needs the database.
+ * Seeded once the application is ready and rebuilt periodically, which also sheds deleted users and regrows
+ * the filter when the user count outgrows it. Until the first seed everything is reported as present.
+ * Users registered on other instances are picked up by polling for users created since the previous poll, the
+ * window reaches back by an overlap so late commits and clocks running behind are covered.
+ */
+@Slf4j
+@Component
+public class UsernameBloomFilter {
+    private final UserRepository userRepository;
+    private final long expectedUsers;
+    private final double falsePositiveProbability;
+    private final Duration pollOverlap;
+    private final Counter definitelyAbsent;
+    private final Counter mightBePresent;
+    private final Counter falsePositives;
+    private volatile Bits current;
+    // filter being rebuilt, registrations are added to it as well so none are lost by the swap
+    private volatile Bits rebuilding;
+    // users created after this are fetched by the next poll
+    private volatile Instant pollFrom;
+
+    public UsernameBloomFilter(UserRepository userRepository, MeterRegistry meterRegistry,
+                               @Value("${scrapyard.auth.username-filter.expected-users:100000}") long expectedUsers,
+                               @Value("${scrapyard.auth.username-filter.false-positive-probability:0.01}") double falsePositiveProbability,
+                               @Value("${scrapyard.auth.username-filter.poll-overlap:30s}") Duration pollOverlap) {
+        this.userRepository = userRepository;
+        this.expectedUsers = expectedUsers;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.pollOverlap = pollOverlap;
+        this.pollFrom = Instant.now().minus(pollOverlap);
+        this.definitelyAbsent = Counter.builder("scrapyard.auth.username-filter.lookups")
+                .tag("result", "absent")
+                .description("Username lookups answered by the Bloom filter")
+                .register(meterRegistry);
+        this.mightBePresent = Counter.builder("scrapyard.auth.username-filter.lookups")
+                .tag("result", "present")
+                .description("Username lookups answered by the Bloom filter")
+                .register(meterRegistry);
+        this.falsePositives = Counter.builder("scrapyard.auth.username-filter.false-positives")
+                .description("Usernames reported present by the Bloom filter but missing from the database")
+                .register(meterRegistry);
+        Gauge.builder("scrapyard.auth.username-filter.size", this, f -> f.current == null ? 0 : f.current.size)
+                .description("Bits in the username Bloom filter")
+                .baseUnit("bits")
+                .register(meterRegistry);
+        Gauge.builder("scrapyard.auth.username-filter.insertions", this, f -> f.current == null ? 0 : f.current.insertions.get())
+                .description("Usernames added to the Bloom filter since it was last built")
+                .register(meterRegistry);
+        Gauge.builder("scrapyard.auth.username-filter.expected-fpp", this, f -> f.current == null ? 1 : f.current.expectedFpp())
+                .description("False-positive probability of the Bloom filter at its current fill")
+                .register(meterRegistry);
+    }
+
+    public boolean mightContain(String username) {
+        Bits bits = current;
+        boolean present = bits == null || bits.mightContain(username);
+        (present ? mightBePresent : definitelyAbsent).increment();
+        return present;
+    }
+
+    public void put(String username) {
+        // rebuilding is read first, a swap in between then leaves the username in the new filter
+        Bits next = rebuilding;
+        Bits bits = current;
+        if (bits != null)
+            bits.put(username);
+        if (next != null)
+            next.put(username);
+    }
+
+    // the filter said present but the database had no such user
+    public void recordFalsePositive() {
+        falsePositives.increment();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${scrapyard.auth.username-filter.reseed-interval-ms:3600000}",
+            fixedDelayString = "${scrapyard.auth.username-filter.reseed-interval-ms:3600000}")
+    @Transactional(readOnly = true)
+    public void reseed() {
+        // room for twice the current users keeps the false-positive rate down until the next reseed
+        Bits bits = new Bits(Math.max(expectedUsers, userRepository.count() * 2), falsePositiveProbability);
+        rebuilding = bits;
+        try (Stream<String> usernames = userRepository.streamAllUsernames()) {
+            usernames.forEach(bits::put);
+        }
+        current = bits;
+        rebuilding = null;
+        log.info("Username Bloom filter seeded with {} users in {} bits", bits.insertions.get(), bits.size);
+    }
+
+    @Scheduled(fixedDelayString = "${scrapyard.auth.username-filter.poll-interval-ms:2000}")
+    @Transactional(readOnly = true)
+    public void poll() {
+        Instant started = Instant.now();
+        try (Stream<String> usernames = userRepository.streamUsernamesCreatedAfter(pollFrom)) {
+            // the overlap reads most users twice, only new ones count as insertions
+            usernames.filter(username -> current != null && !current.mightContain(username))
+                    .forEach(this::put);
+        }
+        pollFrom = started.minus(pollOverlap);
+    }
+
+    private static final class Bits {
+        private final AtomicLongArray words;
+        private final long size;
+        private final int hashes;
+        private final AtomicLong insertions = new AtomicLong();
+
+        Bits(long expectedInsertions, double falsePositiveProbability) {
+            // optimal size and number of hash functions for the expected insertions and target probability
+            long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+            this.words = new AtomicLongArray((int) ((bits + 63) / 64));
+            this.size = words.length() * 64L;
+            this.hashes = Math.max(1, (int) Math.round((double) size / expectedInsertions * Math.log(2)));
+        }
+
+        boolean mightContain(String username) {
+            long hash1 = hash(username);
+            long hash2 = mix(hash1);
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(hash1 + i * hash2, size);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0)
+                    return false;
+            }
+            return true;
+        }
+
+        void put(String username) {
+            long hash1 = hash(username);
+            long hash2 = mix(hash1);
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(hash1 + i * hash2, size);
+                long mask = 1L << bit;
+                words.getAndAccumulate((int) (bit >>> 6), mask, (word, m) -> word | m);
+            }
+            insertions.incrementAndGet();
+        }
+
+        double expectedFpp() {
+            return Math.pow(1 - Math.exp(-hashes * (double) insertions.get() / size), hashes);
+        }
+
+        // FNV-1a over the UTF-8 bytes, the second hash is derived from it with a 64-bit finalizer
+        private static long hash(String username) {
+            long hash = 0xcbf29ce484222325L;
+            for (byte b : username.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b;
+                hash *= 0x100000001b3L;
+            }
+            return hash;
+        }
+
+        private static long mix(long hash) {
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb9fe1a85ec53L;
+            hash ^= hash >>> 33;
+            return hash | 1;
+        }
+    }
+}
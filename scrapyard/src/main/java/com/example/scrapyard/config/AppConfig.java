@@ -1,17 +1,66 @@
 package com.example.scrapyard.config;
 
+import com.example.scrapyard.auth.BoundedPasswordEncoder;
+import com.example.scrapyard.auth.CopyingUserCache;
+import com.example.scrapyard.service.CustomUserDetailsServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Duration;
+
 @Configuration
 public class AppConfig {
+    // Argon2 is deliberately expensive, it runs on its own bounded pool instead of the request threads
+    @Bean
+    public PasswordEncoder passwordEncoder(
+            MeterRegistry meterRegistry,
+            @Value("${scrapyard.auth.password-hashing.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int threads,
+            @Value("${scrapyard.auth.password-hashing.queue-capacity:50}") int queueCapacity,
+            @Value("${scrapyard.auth.password-hashing.max-wait:5s}") Duration maxWait,
+            @Value("${scrapyard.auth.password-hashing.retry-after-seconds:1}") int retryAfterSeconds){
+        return new BoundedPasswordEncoder(Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8(),
+                threads, queueCapacity, maxWait, retryAfterSeconds, meterRegistry);
+    }
+
+    // the only authentication provider, optionally with a cache of recently loaded users
+    @Bean
+    public DaoAuthenticationProvider authenticationProvider(
+            CustomUserDetailsServiceImpl userDetailsService, PasswordEncoder passwordEncoder, CacheManager cacheManager,
+            @Value("${scrapyard.auth.user-cache.enabled:true}") boolean userCacheEnabled) {
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(userDetailsService);
+        provider.setPasswordEncoder(passwordEncoder);
+        if (userCacheEnabled)
+            provider.setUserCache(new CopyingUserCache(cacheManager.getCache(CacheConfig.USERS)));
+        return provider;
+    }
+
+    // registered ahead of the security filters, so excess requests are shed before any work is done for them
     @Bean
-    public PasswordEncoder passwordEncoder(){
-        return Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8();
+    @ConditionalOnProperty(name = "scrapyard.concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            MeterRegistry meterRegistry,
+            @Value("${scrapyard.concurrency-limit.initial-limit:50}") int initialLimit,
+            @Value("${scrapyard.concurrency-limit.min-limit:5}") int minLimit,
+            @Value("${scrapyard.concurrency-limit.max-limit:200}") int maxLimit,
+            @Value("${scrapyard.concurrency-limit.backoff-ratio:0.9}") double backoffRatio,
+            @Value("${scrapyard.concurrency-limit.rtt-tolerance:2.0}") double rttTolerance,
+            @Value("${scrapyard.concurrency-limit.baseline-window:500}") int baselineWindow) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(new ConcurrencyLimitFilter(
+                initialLimit, minLimit, maxLimit, backoffRatio, rttTolerance, baselineWindow, meterRegistry));
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        return registration;
     }
 
     @Bean
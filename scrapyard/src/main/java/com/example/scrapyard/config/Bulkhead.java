@@ -0,0 +1,19 @@
+package com.example.scrapyard.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// handlers of one group share the concurrency limits in scrapyard.bulkhead.groups.<group>.*
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Bulkhead {
+    String AUTH = "auth";
+    String CAR_READ = "car-read";
+    String CAR_WRITE = "car-write";
+    String BRAND_ADMIN = "brand-admin";
+    String ANALYTICS = "analytics";
+
+    String value();
+}
@@ -0,0 +1,139 @@
+package com.example.scrapyard.config;
+
+import com.example.scrapyard.api.exceptions.BulkheadFullException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulkheads around handlers annotated with {@link Bulkhead}: each group gets its own semaphore and a short,
+ * bounded wait for it, so a flood of one kind of request (logins, full scans) can hold at most its group's
+ * share of the request threads. Requests that find the group full get 503 through BulkheadFullException.
+ * A streamed response gives its permit back as soon as the request thread is released.
+ */
+public class BulkheadInterceptor implements AsyncHandlerInterceptor {
+    private static final String PERMIT_ATTRIBUTE = BulkheadInterceptor.class.getName() + ".permit";
+
+    private final BulkheadProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Compartment> compartments = new ConcurrentHashMap<>();
+
+    public BulkheadInterceptor(BulkheadProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        // configured groups show up in the metrics before their first request
+        for (String group : properties.getGroups().keySet())
+            compartment(group);
+    }
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                             @NonNull Object handler) throws BulkheadFullException {
+        // the async dispatch of a streamed response already went through the bulkhead
+        if (request.getDispatcherType() == DispatcherType.ASYNC || !(handler instanceof HandlerMethod handlerMethod))
+            return true;
+        Bulkhead bulkhead = handlerMethod.getMethodAnnotation(Bulkhead.class);
+        if (bulkhead == null)
+            bulkhead = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), Bulkhead.class);
+        if (bulkhead == null)
+            return true;
+        Compartment compartment = compartment(bulkhead.value());
+        compartment.acquire();
+        request.setAttribute(PERMIT_ATTRIBUTE, compartment);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                               @NonNull Object handler) {
+        release(request);
+    }
+
+    @Override
+    public void afterCompletion(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                @NonNull Object handler, Exception ex) {
+        release(request);
+    }
+
+    private void release(HttpServletRequest request) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) instanceof Compartment compartment) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            compartment.permits.release();
+        }
+    }
+
+    private Compartment compartment(String group) {
+        return compartments.computeIfAbsent(group, name ->
+                new Compartment(name, properties.getGroups().getOrDefault(name, properties.getDefaults())));
+    }
+
+    private final class Compartment {
+        private final String group;
+        private final BulkheadProperties.Group settings;
+        private final Semaphore permits;
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final Counter rejected;
+        private final Timer waitTime;
+
+        Compartment(String group, BulkheadProperties.Group settings) {
+            this.group = group;
+            this.settings = settings;
+            this.permits = new Semaphore(settings.getMaxConcurrent());
+            Gauge.builder("scrapyard.bulkhead.active", permits, p -> settings.getMaxConcurrent() - p.availablePermits())
+                    .tag("group", group)
+                    .description("Requests of the group being handled")
+                    .register(meterRegistry);
+            Gauge.builder("scrapyard.bulkhead.waiting", waiting, AtomicInteger::get)
+                    .tag("group", group)
+                    .description("Requests of the group waiting for a permit")
+                    .register(meterRegistry);
+            this.rejected = Counter.builder("scrapyard.bulkhead.rejected")
+                    .tag("group", group)
+                    .description("Requests rejected with 503 because the group was saturated")
+                    .register(meterRegistry);
+            this.waitTime = Timer.builder("scrapyard.bulkhead.wait")
+                    .tag("group", group)
+                    .description("Time requests waited for a permit of the group")
+                    .register(meterRegistry);
+        }
+
+        void acquire() throws BulkheadFullException {
+            if (permits.tryAcquire())
+                return;
+            if (waiting.incrementAndGet() > settings.getMaxWaiting()) {
+                waiting.decrementAndGet();
+                throw reject();
+            }
+            long started = System.nanoTime();
+            try {
+                if (!permits.tryAcquire(settings.getMaxWait().toNanos(), TimeUnit.NANOSECONDS))
+                    throw reject();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw reject();
+            } finally {
+                waiting.decrementAndGet();
+                waitTime.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private BulkheadFullException reject() {
+            rejected.increment();
+            return BulkheadFullException.createWith(group, properties.getRetryAfterSeconds());
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.scrapyard.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+// scrapyard.bulkhead.*, groups without their own settings use the defaults
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "scrapyard.bulkhead")
+public class BulkheadProperties {
+    private boolean enabled = true;
+    private int retryAfterSeconds = 1;
+    private Group defaults = new Group();
+    private Map<String, Group> groups = new HashMap<>();
+
+    @Getter
+    @Setter
+    public static class Group {
+        private int maxConcurrent = 50;
+        // requests allowed to wait for a permit, any more are rejected at once
+        private int maxWaiting = 10;
+        private Duration maxWait = Duration.ofMillis(500);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.scrapyard.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String CAR_PRICE_STATS = "carPriceStats";
+    public static final String BRAND_IDS = "brandIds";
+    public static final String MODEL_IDS = "modelIds";
+    public static final String USERS = "users";
+    private static final int PRICE_STATS_ENTRIES = 16;
+
+    @Bean
+    public CacheManager cacheManager(
+            @Value("${scrapyard.cache.car-price-stats.ttl:10s}") Duration carPriceStatsTtl,
+            @Value("${scrapyard.cache.catalog.max-size:10000}") long catalogMaxSize,
+            @Value("${scrapyard.cache.catalog.ttl:10m}") Duration catalogTtl,
+            @Value("${scrapyard.cache.users.max-size:10000}") long usersMaxSize,
+            @Value("${scrapyard.cache.users.ttl:60s}") Duration usersTtl) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // one entry per grouping, dropped on every car write
+        cacheManager.registerCustomCache(CAR_PRICE_STATS, Caffeine.newBuilder()
+                .maximumSize(PRICE_STATS_ENTRIES)
+                .expireAfterWrite(carPriceStatsTtl)
+                .recordStats()
+                .build());
+        // name -> id of brands and models, kept current by the services that write them,
+        // the ttl only bounds staleness when another instance deletes a brand
+        cacheManager.registerCustomCache(BRAND_IDS, Caffeine.newBuilder()
+                .maximumSize(catalogMaxSize)
+                .expireAfterWrite(catalogTtl)
+                .recordStats()
+                .build());
+        cacheManager.registerCustomCache(MODEL_IDS, Caffeine.newBuilder()
+                .maximumSize(catalogMaxSize)
+                .expireAfterWrite(catalogTtl)
+                .recordStats()
+                .build());
+        // users loaded for login, a short ttl bounds how long a role change takes to apply
+        cacheManager.registerCustomCache(USERS, Caffeine.newBuilder()
+                .maximumSize(usersMaxSize)
+                .expireAfterWrite(usersTtl)
+                .recordStats()
+                .build());
+        // puts and evictions made inside a transaction are applied once it commits
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.scrapyard.config;
+
+import com.example.scrapyard.model.CarChangeCounter;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// creates the change counter row and numbers the cars written before change tracking,
+// so a client syncing from scratch gets them too
+@Slf4j
+@Component
+public class CarChangeSeqBackfill {
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // the entity manager factory has updated the schema by the time it is injected
+    public CarChangeSeqBackfill(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    void backfill() {
+        try {
+            jdbcTemplate.update("INSERT INTO car_change_counter (id, last_seq, purged_through_seq) " +
+                    "SELECT ?, 0, 0 WHERE NOT EXISTS (SELECT 1 FROM car_change_counter WHERE id = ?)",
+                    CarChangeCounter.ROW_ID, CarChangeCounter.ROW_ID);
+        } catch (DuplicateKeyException e) {
+            // another instance created it at the same time
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            // locked like every car write, so no car gets a number while we hand them out
+            long lastSeq = jdbcTemplate.queryForObject("SELECT last_seq FROM car_change_counter WHERE id = ? FOR UPDATE",
+                    Long.class, CarChangeCounter.ROW_ID);
+            List<UUID> ids = jdbcTemplate.queryForList("SELECT id FROM car WHERE change_seq IS NULL", UUID.class);
+            if (ids.isEmpty())
+                return;
+            List<Object[]> rows = new ArrayList<>(ids.size());
+            for (UUID id : ids)
+                rows.add(new Object[]{++lastSeq, id});
+            jdbcTemplate.batchUpdate("UPDATE car SET change_seq = ? WHERE id = ?", rows);
+            jdbcTemplate.update("UPDATE car_change_counter SET last_seq = ? WHERE id = ?", lastSeq, CarChangeCounter.ROW_ID);
+            log.info("Assigned change sequence numbers to {} cars written before change tracking", ids.size());
+        });
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.scrapyard.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+// car's brand, model and owner used to be one-to-one, ddl-auto=update adds constraints but never drops the
+// unique ones that came with that mapping, so databases created before it still allow one car per brand
+@Slf4j
+@Component
+public class CarSchemaCleanup {
+    private static final String SINGLE_COLUMN_CONSTRAINTS =
+            "SELECT tc.CONSTRAINT_NAME, UPPER(MAX(k.COLUMN_NAME)) FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS tc " +
+            "JOIN INFORMATION_SCHEMA.KEY_COLUMN_USAGE k " +
+            "ON k.CONSTRAINT_SCHEMA = tc.CONSTRAINT_SCHEMA AND k.CONSTRAINT_NAME = tc.CONSTRAINT_NAME " +
+            "WHERE UPPER(tc.TABLE_NAME) = 'CAR' AND tc.CONSTRAINT_TYPE = ? " +
+            "GROUP BY tc.CONSTRAINT_NAME HAVING COUNT(*) = 1";
+    // association column -> referenced table
+    private static final Map<String, String> ASSOCIATIONS = Map.of(
+            "BRAND_ID", "brand",
+            "MODEL_ID", "model",
+            "USER_ID", "users");
+
+    private record Constraint(String name, String column) {}
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // the entity manager factory has updated the schema by the time it is injected
+    public CarSchemaCleanup(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    void dropOneToOneConstraints() {
+        if (!H2Schema.isH2(jdbcTemplate)) {
+            log.info("Not an H2 database, one-to-one constraints on car are left to the schema migrations");
+            return;
+        }
+        List<Constraint> foreignKeys = constraints("FOREIGN KEY");
+        for (Constraint unique : constraints("UNIQUE")) {
+            // a foreign key may use the unique index as its own, it is dropped and added again with a plain index
+            List<Constraint> dependent = foreignKeys.stream()
+                    .filter(foreignKey -> foreignKey.column().equals(unique.column()))
+                    .toList();
+            for (Constraint foreignKey : dependent)
+                jdbcTemplate.execute("ALTER TABLE car DROP CONSTRAINT " + foreignKey.name());
+            jdbcTemplate.execute("ALTER TABLE car DROP CONSTRAINT " + unique.name());
+            for (Constraint foreignKey : dependent)
+                jdbcTemplate.execute("ALTER TABLE car ADD CONSTRAINT " + foreignKey.name() + " FOREIGN KEY (" +
+                        foreignKey.column() + ") REFERENCES " + ASSOCIATIONS.get(foreignKey.column()) + " (id)");
+            log.info("Dropped unique constraint {} on car.{} left from the one-to-one mapping", unique.name(), unique.column());
+        }
+    }
+
+    private List<Constraint> constraints(String type) {
+        return jdbcTemplate.query(SINGLE_COLUMN_CONSTRAINTS,
+                        (rs, rowNum) -> new Constraint(rs.getString(1), rs.getString(2)), type).stream()
+                .filter(constraint -> ASSOCIATIONS.containsKey(constraint.column()))
+                .toList();
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.scrapyard.config;
+
+import com.example.scrapyard.api.exceptions.ApiError;
+import com.google.gson.Gson;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Adaptive limit on concurrent requests (AIMD). Every finished request is a latency sample that is compared
+ * with a slowly moving baseline of its own route, so a full export is not held against the latency of a lookup
+ * by id: while requests stay close to their baseline and the limit is actually used, the limit grows by about one
+ * per round trip; a request much slower than its baseline, or a server error, cuts the limit by the backoff ratio,
+ * at most once per round trip. Below the initial limit it grows back under any load, otherwise a few bad round
+ * trips would leave a lightly used service at the minimum for good. Requests over the limit are shed at once with
+ * 503 instead of queueing on Tomcat threads. Actuator requests are never limited so health checks keep working.
+ * A 503 with Retry-After is load shedding by a bulkhead or the password hashing pool, it comes back at once and
+ * says nothing about the server as a whole, so it is not a sample. State is kept in atomics, the limiter takes
+ * no lock on the request path.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    // requests that matched no handler share one baseline, their paths are not a bounded set
+    static final String UNMATCHED_ROUTE = "UNMATCHED";
+
+    private final Gson gson = new Gson();
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double rttTolerance;
+    private final int baselineWindow;
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final MeterRegistry meterRegistry;
+    private final Counter rejected;
+    private final Timer rtt;
+    // double bits, see limit()
+    private final AtomicLong limitBits;
+    private final Map<String, Baseline> baselines = new ConcurrentHashMap<>();
+    private final AtomicLong lastDecrease = new AtomicLong();
+
+    public ConcurrencyLimitFilter(int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+                                  double rttTolerance, int baselineWindow, MeterRegistry meterRegistry) {
+        this.limitBits = new AtomicLong(Double.doubleToLongBits(initialLimit));
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.rttTolerance = rttTolerance;
+        this.baselineWindow = baselineWindow;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("scrapyard.concurrency.limit", this, ConcurrencyLimitFilter::limit)
+                .description("Concurrent requests currently allowed")
+                .register(meterRegistry);
+        Gauge.builder("scrapyard.concurrency.inflight", inflight, AtomicInteger::get)
+                .description("Requests currently being processed")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("scrapyard.concurrency.rejected")
+                .description("Requests shed with 503 because the concurrency limit was reached")
+                .register(meterRegistry);
+        this.rtt = Timer.builder("scrapyard.concurrency.rtt")
+                .description("Latency of requests admitted by the concurrency limiter")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return request.getServletPath().startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        int current = inflight.incrementAndGet();
+        if (current > (int) limit()) {
+            inflight.decrementAndGet();
+            rejected.increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType("application/json");
+            response.getWriter().write(gson.toJson(new ApiError(Collections.singletonList(
+                    "Server is busy, try again later"))));
+            return;
+        }
+        long started = System.nanoTime();
+        boolean failed = true;
+        boolean shed = false;
+        try {
+            filterChain.doFilter(request, response);
+            failed = response.getStatus() >= 500;
+            shed = response.getStatus() == HttpStatus.SERVICE_UNAVAILABLE.value()
+                    && response.containsHeader(HttpHeaders.RETRY_AFTER);
+        } finally {
+            inflight.decrementAndGet();
+            // a streamed response has only started, its latency says nothing about the load
+            if (!request.isAsyncStarted() && !shed) {
+                long elapsed = System.nanoTime() - started;
+                rtt.record(elapsed, TimeUnit.NANOSECONDS);
+                onSample(route(request), elapsed, current, failed);
+            }
+        }
+    }
+
+    int getLimit() {
+        return (int) limit();
+    }
+
+    void onSample(String route, long rttNanos, int inflightAtStart, boolean failed) {
+        Baseline baseline = baselines.computeIfAbsent(route, Baseline::new);
+        // compared before the sample moves the baseline, the first sample of a route only sets it
+        double baselineNanos = baseline.add(rttNanos);
+        boolean slow = baselineNanos > 0 && rttNanos > baselineNanos * rttTolerance;
+
+        if (failed || slow) {
+            // requests that were already running when the limit dropped would cut it again, wait one round trip;
+            // of the samples racing for the same round trip only the one that moves lastDecrease cuts
+            long now = System.nanoTime();
+            long last = lastDecrease.get();
+            if (now - last >= rttNanos && lastDecrease.compareAndSet(last, now))
+                updateLimit(limit -> Math.max(minLimit, limit * backoffRatio));
+        } else {
+            // above the initial limit only grow one that is in use, an idle service says nothing about how much it can take
+            updateLimit(limit -> limit < initialLimit || inflightAtStart * 2 >= limit
+                    ? Math.min(maxLimit, limit + 1 / limit)
+                    : limit);
+        }
+    }
+
+    private double limit() {
+        return Double.longBitsToDouble(limitBits.get());
+    }
+
+    private void updateLimit(DoubleUnaryOperator update) {
+        limitBits.updateAndGet(bits -> Double.doubleToLongBits(update.applyAsDouble(Double.longBitsToDouble(bits))));
+    }
+
+    // the handler's pattern, not the path, so /car/{id} is one route however many ids are asked for
+    private static String route(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern == null ? UNMATCHED_ROUTE : request.getMethod() + " " + pattern;
+    }
+
+    private final class Baseline {
+        // double bits of the moving average, 0 until the first sample
+        private final AtomicLong nanosBits = new AtomicLong();
+
+        Baseline(String route) {
+            Gauge.builder("scrapyard.concurrency.rtt.baseline", nanosBits, b -> Double.longBitsToDouble(b.get()) / 1e6)
+                    .tag("route", route)
+                    .description("Baseline latency of the route the limit is adjusted against")
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+        }
+
+        // moves the average towards the sample and returns the average from before it
+        double add(long rttNanos) {
+            long before = nanosBits.getAndUpdate(bits -> {
+                double nanos = Double.longBitsToDouble(bits);
+                return Double.doubleToLongBits(nanos == 0 ? rttNanos : nanos + (rttNanos - nanos) / baselineWindow);
+            });
+            return Double.longBitsToDouble(before);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.scrapyard.config;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// the startup schema fixes read H2's INFORMATION_SCHEMA and use its ALTER TABLE syntax, on any other database
+// they are skipped and the change has to come with that database's migrations
+final class H2Schema {
+    private static final String PRODUCT_NAME = "H2";
+
+    private H2Schema() {
+    }
+
+    static boolean isH2(JdbcTemplate jdbcTemplate) {
+        return PRODUCT_NAME.equals(jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()));
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.scrapyard.config;
+
+import com.example.scrapyard.model.CarChangeCounter;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// ddl-auto=update only logs a warning when uk_model_name cannot be added because of duplicate model names,
+// without it concurrent get-or-create from several instances can insert a model twice. Duplicates are merged
+// into the model with the lowest id, their cars move over and get new change numbers, then the constraint is added
+@Slf4j
+@Component
+@DependsOn("carChangeSeqBackfill")
+public class ModelNameConstraint {
+    static final String CONSTRAINT_NAME = "uk_model_name";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // the entity manager factory has updated the schema by the time it is injected
+    public ModelNameConstraint(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                               EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    void ensure() {
+        if (!H2Schema.isH2(jdbcTemplate)) {
+            log.info("Not an H2 database, unique constraint {} is left to the schema migrations", CONSTRAINT_NAME);
+            return;
+        }
+        Integer existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS " +
+                "WHERE UPPER(TABLE_NAME) = 'MODEL' AND UPPER(CONSTRAINT_NAME) = UPPER(?)", Integer.class, CONSTRAINT_NAME);
+        if (existing != null && existing > 0)
+            return;
+        int merged = transactionTemplate.execute(status -> mergeDuplicates());
+        try {
+            jdbcTemplate.execute("ALTER TABLE model ADD CONSTRAINT " + CONSTRAINT_NAME + " UNIQUE (name)");
+        } catch (DataAccessException e) {
+            throw new IllegalStateException("Could not add unique constraint " + CONSTRAINT_NAME + " on model.name", e);
+        }
+        log.warn("Unique constraint {} was missing, merged {} duplicate models and added it", CONSTRAINT_NAME, merged);
+    }
+
+    private int mergeDuplicates() {
+        // locked like every car write, the moved cars are numbered in order with everything else
+        long lastSeq = jdbcTemplate.queryForObject("SELECT last_seq FROM car_change_counter WHERE id = ? FOR UPDATE",
+                Long.class, CarChangeCounter.ROW_ID);
+        Map<String, UUID> kept = new LinkedHashMap<>();
+        int merged = 0;
+        List<Map<String, Object>> duplicates = jdbcTemplate.queryForList("SELECT id, name FROM model WHERE name IN " +
+                "(SELECT name FROM model GROUP BY name HAVING COUNT(*) > 1) ORDER BY name, id");
+        for (Map<String, Object> row : duplicates) {
+            UUID id = (UUID) row.get("id");
+            UUID keptId = kept.putIfAbsent((String) row.get("name"), id);
+            if (keptId == null)
+                continue;
+            for (UUID carId : jdbcTemplate.queryForList("SELECT id FROM car WHERE model_id = ?", UUID.class, id))
+                jdbcTemplate.update("UPDATE car SET model_id = ?, change_seq = ? WHERE id = ?", keptId, ++lastSeq, carId);
+            jdbcTemplate.update("DELETE FROM model WHERE id = ?", id);
+            merged++;
+        }
+        jdbcTemplate.update("UPDATE car_change_counter SET last_seq = ? WHERE id = ?", lastSeq, CarChangeCounter.ROW_ID);
+        return merged;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.scrapyard.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+    private final BulkheadProperties bulkheadProperties;
+    private final MeterRegistry meterRegistry;
+
+    public WebConfig(BulkheadProperties bulkheadProperties, MeterRegistry meterRegistry) {
+        this.bulkheadProperties = bulkheadProperties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (bulkheadProperties.isEnabled())
+            registry.addInterceptor(new BulkheadInterceptor(bulkheadProperties, meterRegistry));
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.scrapyard.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CarBatchError {
+    // position of the item in the request list
+    private int index;
+    private List<String> errors;
+}
@@ -0,0 +1,20 @@
+package com.example.scrapyard.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CarBatchResponse {
+    // ids of the created cars, in request order
+    private List<UUID> created;
+    // items that were rejected, the rest of the batch is still created
+    private List<CarBatchError> errors;
+}
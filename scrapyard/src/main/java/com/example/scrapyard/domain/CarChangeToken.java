@@ -0,0 +1,37 @@
+package com.example.scrapyard.domain;
+
+import com.example.scrapyard.api.exceptions.InvalidCursorException;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Opaque continuation token for the car change feed. Encodes the last change sequence number a client
+ * has seen, clients should treat it as an arbitrary string.
+ */
+public final class CarChangeToken {
+    private static final int SEQ_BYTES = Long.BYTES;
+
+    private CarChangeToken() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    public static String encode(long lastSeq) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(ByteBuffer.allocate(SEQ_BYTES).putLong(lastSeq).array());
+    }
+
+    public static long decode(String token) throws InvalidCursorException {
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(token);
+            if (bytes.length != SEQ_BYTES)
+                throw InvalidCursorException.createWith(token);
+            long lastSeq = ByteBuffer.wrap(bytes).getLong();
+            if (lastSeq < 0)
+                throw InvalidCursorException.createWith(token);
+            return lastSeq;
+        } catch (IllegalArgumentException e) {
+            throw InvalidCursorException.createWith(token);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.scrapyard.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CarChanges {
+    // cars created or changed since the token, in their current state
+    private List<CarResponse> upserts;
+    // ids of cars deleted since the token
+    private List<UUID> deletes;
+    // token to pass as since on the next call
+    private String next;
+    // more changes are waiting, call again right away with next
+    private boolean hasMore;
+}
@@ -0,0 +1,38 @@
+package com.example.scrapyard.domain;
+
+import com.example.scrapyard.api.exceptions.InvalidCursorException;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Opaque keyset cursor for car listings. Encodes the id of the last car on a page,
+ * clients should treat it as an arbitrary string.
+ */
+public final class CarCursor {
+    private static final int UUID_BYTES = 16;
+
+    private CarCursor() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    public static String encode(UUID lastId) {
+        ByteBuffer buffer = ByteBuffer.allocate(UUID_BYTES);
+        buffer.putLong(lastId.getMostSignificantBits());
+        buffer.putLong(lastId.getLeastSignificantBits());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    public static UUID decode(String cursor) throws InvalidCursorException {
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+            if (bytes.length != UUID_BYTES)
+                throw InvalidCursorException.createWith(cursor);
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            return new UUID(buffer.getLong(), buffer.getLong());
+        } catch (IllegalArgumentException e) {
+            throw InvalidCursorException.createWith(cursor);
+        }
+    }
+}
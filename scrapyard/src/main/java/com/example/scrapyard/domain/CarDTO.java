@@ -4,15 +4,12 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.*;
 import lombok.*;
 
-import java.util.UUID;
-
 @Setter
 @Getter
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
 public class CarDTO {
-    private UUID id;
     @NotEmpty
     @Size(min = 2, message = "should have at least 2 characters")
     @Schema(name="Car model", example = "Focus")
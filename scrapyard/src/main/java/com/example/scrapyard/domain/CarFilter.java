@@ -0,0 +1,48 @@
+package com.example.scrapyard.domain;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CarFilter {
+    @Schema(description = "Brand name", example = "Ford")
+    private String brand;
+    @Schema(description = "Model name", example = "Focus")
+    private String model;
+    @Schema(description = "Earliest year of production, inclusive", example = "1990")
+    private Integer minYear;
+    @Schema(description = "Latest year of production, inclusive", example = "2010")
+    private Integer maxYear;
+    @Schema(description = "Lowest price, inclusive", example = "500")
+    private Double minPrice;
+    @Schema(description = "Highest price, inclusive", example = "5000")
+    private Double maxPrice;
+    @Schema(description = "Id of the user who added the car")
+    private UUID owner;
+
+    // filters that were set, in a stable order, to echo back to the client
+    public Map<String, Object> usedFilters() {
+        Map<String, Object> used = new LinkedHashMap<>();
+        putIfSet(used, "brand", brand);
+        putIfSet(used, "model", model);
+        putIfSet(used, "minYear", minYear);
+        putIfSet(used, "maxYear", maxYear);
+        putIfSet(used, "minPrice", minPrice);
+        putIfSet(used, "maxPrice", maxPrice);
+        putIfSet(used, "owner", owner);
+        return used;
+    }
+
+    private static void putIfSet(Map<String, Object> used, String name, Object value) {
+        if (value != null)
+            used.put(name, value);
+    }
+}
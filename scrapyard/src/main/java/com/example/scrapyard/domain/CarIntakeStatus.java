@@ -0,0 +1,27 @@
+package com.example.scrapyard.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CarIntakeStatus {
+    public enum State {
+        // accepted and waiting in the write-behind queue
+        PENDING,
+        CREATED,
+        FAILED
+    }
+
+    private UUID id;
+    private State state;
+    // why the car could not be created, empty unless FAILED
+    private List<String> errors;
+}
@@ -0,0 +1,20 @@
+package com.example.scrapyard.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CarLookupResponse {
+    // cars that exist, in the order their ids were requested
+    private List<CarResponse> found;
+    // requested ids with no car
+    private List<UUID> missing;
+}
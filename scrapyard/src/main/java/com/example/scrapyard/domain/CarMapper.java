@@ -0,0 +1,34 @@
+package com.example.scrapyard.domain;
+
+import com.example.scrapyard.model.Brand;
+import com.example.scrapyard.model.Car;
+import com.example.scrapyard.model.Model;
+import com.example.scrapyard.model.UserEntity;
+import org.springframework.stereotype.Component;
+
+// plain field copies in place of the reflective ModelMapper, a new field on either side has to be added here
+@Component
+public class CarMapper {
+
+    // brand and model become plain values, so the response never holds a managed entity or a lazy proxy
+    public CarResponse toResponse(Car car) {
+        CarResponse response = new CarResponse();
+        response.setId(car.getId());
+        response.setModel(car.getModel() == null ? null : new CatalogRef(car.getModel().getId(), car.getModel().getName()));
+        response.setBrand(car.getBrand() == null ? null : new CatalogRef(car.getBrand().getId(), car.getBrand().getName()));
+        response.setYearOfProduction(car.getYearOfProduction());
+        response.setPrice(car.getPrice());
+        return response;
+    }
+
+    // the DTO only names brand and model, the caller resolves them; the id is left for the caller to keep or assign
+    public Car toCar(CarDTO car, Model model, Brand brand, UserEntity user) {
+        return Car.builder()
+                .model(model)
+                .brand(brand)
+                .yearOfProduction(car.getYearOfProduction())
+                .price(car.getPrice())
+                .user(user)
+                .build();
+    }
+}
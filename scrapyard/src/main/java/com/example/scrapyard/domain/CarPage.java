@@ -0,0 +1,23 @@
+package com.example.scrapyard.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CarPage {
+    private List<CarResponse> cars;
+    // opaque cursor to pass as "after" to get the next page, null on the last page
+    private String next;
+    // filters applied to the listing, empty when none were given
+    private Map<String, Object> filters;
+    // number of cars matching the filters across all pages, only counted when filters are given
+    private Long matched;
+}
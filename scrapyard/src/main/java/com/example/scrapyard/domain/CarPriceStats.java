@@ -0,0 +1,30 @@
+package com.example.scrapyard.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CarPriceStats {
+    // brand name, model name or first year of the decade
+    private String group;
+    private long count;
+    private double sum;
+    private double min;
+    private double max;
+    private double avg;
+
+    // used by the GROUP BY constructor expressions in CarRepository
+    public CarPriceStats(Object group, Long count, Double sum, Double min, Double max, Double avg) {
+        this.group = String.valueOf(group);
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+        this.avg = avg;
+    }
+}
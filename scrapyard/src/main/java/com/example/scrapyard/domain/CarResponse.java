@@ -1,17 +1,26 @@
 package com.example.scrapyard.domain;
 
-import com.example.scrapyard.model.Brand;
-import com.example.scrapyard.model.Model;
 import lombok.*;
 
 import java.util.UUID;
 
 @Setter
 @Getter
+@NoArgsConstructor
 public class CarResponse {
     private UUID id;
-    private Model model;
-    private Brand brand;
+    private CatalogRef model;
+    private CatalogRef brand;
     private Integer yearOfProduction;
     private double price;
+
+    // JPQL constructor expression
+    public CarResponse(UUID id, UUID modelId, String modelName, UUID brandId, String brandName,
+                       Integer yearOfProduction, double price) {
+        this.id = id;
+        this.model = new CatalogRef(modelId, modelName);
+        this.brand = new CatalogRef(brandId, brandName);
+        this.yearOfProduction = yearOfProduction;
+        this.price = price;
+    }
 }
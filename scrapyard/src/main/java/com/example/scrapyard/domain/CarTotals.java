@@ -0,0 +1,7 @@
+package com.example.scrapyard.domain;
+
+// count and price sum computed straight from the car table
+public interface CarTotals {
+    long getCount();
+    double getSum();
+}
@@ -0,0 +1,16 @@
+package com.example.scrapyard.domain;
+
+import lombok.*;
+
+import java.util.UUID;
+
+// brand or model of a car as the car endpoints show it, a plain value rather than the entity
+@Getter
+@Setter
+@EqualsAndHashCode
+@AllArgsConstructor
+@NoArgsConstructor
+public class CatalogRef {
+    private UUID id;
+    private String name;
+}
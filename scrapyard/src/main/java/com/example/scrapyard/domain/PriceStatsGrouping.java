@@ -0,0 +1,7 @@
+package com.example.scrapyard.domain;
+
+public enum PriceStatsGrouping {
+    BRAND,
+    MODEL,
+    DECADE
+}
@@ -0,0 +1,12 @@
+package com.example.scrapyard.domain;
+
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RevokeTokenDTO {
+    String token;
+}
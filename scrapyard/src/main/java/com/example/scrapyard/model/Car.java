@@ -2,7 +2,9 @@ package com.example.scrapyard.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.springframework.data.domain.Persistable;
 
+import java.time.Instant;
 import java.util.UUID;
 
 @Setter
@@ -12,23 +14,76 @@ import java.util.UUID;
 @ToString
 @Builder
 @Entity
-public class Car {
+// composite indexes for the listing filters, each starts with the most selective column of a combination
+@Table(indexes = {
+        @Index(name = "idx_car_brand_year", columnList = "brand_id, year_of_production"),
+        @Index(name = "idx_car_brand_price", columnList = "brand_id, price"),
+        @Index(name = "idx_car_model_year", columnList = "model_id, year_of_production"),
+        @Index(name = "idx_car_model_price", columnList = "model_id, price"),
+        @Index(name = "idx_car_user", columnList = "user_id"),
+        @Index(name = "idx_car_year_price", columnList = "year_of_production, price"),
+        @Index(name = "idx_car_price", columnList = "price"),
+        @Index(name = "idx_car_change_seq", columnList = "change_seq")
+})
+// brand and model are what the car endpoints show, the owner is only ever needed by id
+@NamedEntityGraph(name = Car.CATALOG_GRAPH, attributeNodes = {@NamedAttributeNode("brand"), @NamedAttributeNode("model")})
+@EntityListeners(CarChangeListener.class)
+public class Car implements Persistable<UUID> {
+    public static final String CATALOG_GRAPH = "Car.catalog";
+
+    // assigned in memory (up front by the async intake), so inserts can be sent in JDBC batches
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
     private UUID id;
 
     // if doesn't exist, will be created
-    @OneToOne(cascade = CascadeType.PERSIST)
+    @ManyToOne(fetch = FetchType.LAZY, cascade = CascadeType.PERSIST)
     @JoinColumn(name = "model_id")
+    @ToString.Exclude
     private Model model;
     // can only be created by admin
-    @OneToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "brand_id")
+    @ToString.Exclude
     private Brand brand;
     private Integer yearOfProduction;
     private double price;
     // owner who created object
-    @OneToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
+    @ToString.Exclude
     private UserEntity user;
+
+    // position in the change feed, from CarChangeCounter and renewed by CarChangeListener on every update;
+    // cars written before change tracking get one on startup
+    private Long changeSeq;
+    private Instant lastModified;
+
+    // ids are assigned before insert, so Spring Data cannot tell new cars apart by a null id
+    @Transient
+    @Builder.Default
+    @ToString.Exclude
+    private boolean isNew = true;
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PrePersist
+    void assignId() {
+        if (id == null)
+            id = UUID.randomUUID();
+        lastModified = Instant.now();
+    }
+
+    @PreUpdate
+    void touch() {
+        lastModified = Instant.now();
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        isNew = false;
+    }
 }
@@ -0,0 +1,29 @@
+package com.example.scrapyard.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.*;
+
+/**
+ * Single row handing out the change sequence numbers of cars and tombstones. Every car write advances it
+ * first thing in its transaction, so the row lock makes writers commit in the order of their numbers and a
+ * reader never sees a number while a smaller one is still uncommitted.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "car_change_counter")
+public class CarChangeCounter {
+    public static final int ROW_ID = 1;
+
+    @Id
+    private Integer id;
+    // last number handed out
+    private long lastSeq;
+    // tombstones up to this number have been purged, older change tokens can no longer be followed
+    private long purgedThroughSeq;
+}
@@ -0,0 +1,42 @@
+package com.example.scrapyard.model;
+
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Gives every car write a place in the change feed, whichever code path flushes it. Bulk inserts reserve a range
+ * of numbers up front and keep theirs; any other insert and every update of a car takes the next number here.
+ * The counter is advanced with plain JDBC on the transaction's connection, a query through the entity manager
+ * would flush again from inside the flush that called us.
+ */
+@Component
+public class CarChangeListener {
+    // looked up on first use, the JdbcTemplate is only created after the entity manager factory that creates us
+    private final ObjectProvider<JdbcTemplate> jdbcTemplate;
+
+    public CarChangeListener(ObjectProvider<JdbcTemplate> jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PrePersist
+    void onInsert(Car car) {
+        if (car.getChangeSeq() == null)
+            car.setChangeSeq(nextChangeSeq());
+    }
+
+    @PreUpdate
+    void onUpdate(Car car) {
+        car.setChangeSeq(nextChangeSeq());
+    }
+
+    // locks the counter row until the transaction ends, like CarServiceImpl's reservations
+    private long nextChangeSeq() {
+        JdbcTemplate jdbcTemplate = this.jdbcTemplate.getObject();
+        jdbcTemplate.update("UPDATE car_change_counter SET last_seq = last_seq + 1 WHERE id = ?", CarChangeCounter.ROW_ID);
+        return jdbcTemplate.queryForObject("SELECT last_seq FROM car_change_counter WHERE id = ?",
+                Long.class, CarChangeCounter.ROW_ID);
+    }
+}
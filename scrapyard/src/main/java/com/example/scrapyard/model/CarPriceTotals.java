@@ -0,0 +1,26 @@
+package com.example.scrapyard.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.*;
+
+/**
+ * Single row holding the number of cars and the sum of their prices. Kept up to date in the same
+ * transaction as every car insert and delete, and periodically reconciled against the car table.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "car_price_totals")
+public class CarPriceTotals {
+    public static final int ROW_ID = 1;
+
+    @Id
+    private Integer id;
+    private long carCount;
+    private double priceSum;
+}
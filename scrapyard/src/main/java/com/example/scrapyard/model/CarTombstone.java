@@ -0,0 +1,27 @@
+package com.example.scrapyard.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Deleted car, kept so clients syncing changes learn about the delete. Purged after a retention period.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "car_tombstones", indexes = @Index(name = "idx_car_tombstones_deleted_at", columnList = "deleted_at"))
+public class CarTombstone {
+    @Id
+    private long changeSeq;
+    private UUID carId;
+    private Instant deletedAt;
+}
@@ -0,0 +1,30 @@
+package com.example.scrapyard.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Id (jti) of a token revoked before it expired. Rows are only needed until the token would have
+ * expired anyway and are purged after that. Other instances pick up new rows by their revocation time.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "revoked_tokens", indexes = {
+        @Index(name = "idx_revoked_tokens_expires_at", columnList = "expires_at"),
+        @Index(name = "idx_revoked_tokens_revoked_at", columnList = "revoked_at")})
+public class RevokedToken {
+    @Id
+    private UUID tokenId;
+    private Instant expiresAt;
+    private Instant revokedAt;
+}
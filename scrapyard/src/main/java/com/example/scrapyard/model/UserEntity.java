@@ -3,6 +3,7 @@ package com.example.scrapyard.model;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -12,7 +13,8 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "users")
+@Table(name = "users", uniqueConstraints = @UniqueConstraint(name = "uk_users_username", columnNames = "username"),
+        indexes = @Index(name = "idx_users_created_at", columnList = "created_at"))
 @Builder
 public class UserEntity {
     @Id
@@ -20,8 +22,16 @@ public class UserEntity {
     private UUID id;
     private String passwordHash;
     private String username;
+    // other instances add new users to their username filter by this, users from before it was added have none
+    private Instant createdAt;
     @ManyToMany(fetch = FetchType.EAGER, cascade = CascadeType.MERGE)
     @JoinTable(name = "user_roles", joinColumns = @JoinColumn(name = "user_id", referencedColumnName = "id"),
             inverseJoinColumns = @JoinColumn(name = "role_id", referencedColumnName = "id"))
     private List<Role> roles = new ArrayList<>();
+
+    @PrePersist
+    void stampCreated() {
+        if (createdAt == null)
+            createdAt = Instant.now();
+    }
 }
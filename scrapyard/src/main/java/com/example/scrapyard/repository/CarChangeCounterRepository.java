@@ -0,0 +1,26 @@
+package com.example.scrapyard.repository;
+
+import com.example.scrapyard.model.CarChangeCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CarChangeCounterRepository extends JpaRepository<CarChangeCounter, Integer> {
+    // locks the row until the calling transaction ends
+    @Modifying
+    @Query("UPDATE CarChangeCounter c SET c.lastSeq = c.lastSeq + :count WHERE c.id = :id")
+    int advance(@Param("id") Integer id, @Param("count") long count);
+
+    @Query("SELECT c.lastSeq FROM CarChangeCounter c WHERE c.id = :id")
+    long findLastSeqById(@Param("id") Integer id);
+
+    @Query("SELECT c.purgedThroughSeq FROM CarChangeCounter c WHERE c.id = :id")
+    long findPurgedThroughSeqById(@Param("id") Integer id);
+
+    @Modifying
+    @Query("UPDATE CarChangeCounter c SET c.purgedThroughSeq = :seq WHERE c.id = :id AND c.purgedThroughSeq < :seq")
+    int markPurgedThrough(@Param("id") Integer id, @Param("seq") long seq);
+}
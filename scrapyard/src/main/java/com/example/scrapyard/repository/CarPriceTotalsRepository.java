@@ -0,0 +1,22 @@
+package com.example.scrapyard.repository;
+
+import com.example.scrapyard.model.CarPriceTotals;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface CarPriceTotalsRepository extends JpaRepository<CarPriceTotals, Integer> {
+    @Modifying
+    @Query("UPDATE CarPriceTotals t SET t.carCount = t.carCount + :count, t.priceSum = t.priceSum + :sum WHERE t.id = :id")
+    int add(@Param("id") Integer id, @Param("count") long count, @Param("sum") double sum);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<CarPriceTotals> findWithLockById(Integer id);
+}
@@ -0,0 +1,24 @@
+package com.example.scrapyard.repository;
+
+import com.example.scrapyard.domain.CarResponse;
+import com.example.scrapyard.model.Car;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+// read-only car queries that select the response columns instead of loading entities
+public interface CarProjectionRepository {
+    Optional<CarResponse> findResponseById(UUID id);
+
+    // cars with any of the ids, in no particular order
+    List<CarResponse> findResponsesByIds(Collection<UUID> ids);
+
+    // cars whose change sequence number is in (after, through], oldest change first
+    List<CarResponse> findResponsesChangedBetween(long after, long through);
+
+    // matching cars ordered by id, at most limit of them
+    List<CarResponse> findResponses(Specification<Car> spec, int limit);
+}
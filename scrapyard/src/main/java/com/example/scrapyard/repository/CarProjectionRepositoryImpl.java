@@ -0,0 +1,75 @@
+package com.example.scrapyard.repository;
+
+import com.example.scrapyard.domain.CarResponse;
+import com.example.scrapyard.model.Car;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public class CarProjectionRepositoryImpl implements CarProjectionRepository {
+    private static final String SELECT_RESPONSE = "SELECT new com.example.scrapyard.domain.CarResponse(" +
+            "c.id, m.id, m.name, b.id, b.name, c.yearOfProduction, c.price) " +
+            "FROM Car c JOIN c.model m JOIN c.brand b ";
+    private static final String RESPONSE_BY_ID = SELECT_RESPONSE + "WHERE c.id = :id";
+    private static final String RESPONSES_BY_IDS = SELECT_RESPONSE + "WHERE c.id IN :ids";
+    private static final String RESPONSES_CHANGED_BETWEEN = SELECT_RESPONSE +
+            "WHERE c.changeSeq > :after AND c.changeSeq <= :through ORDER BY c.changeSeq";
+
+    private final EntityManager entityManager;
+
+    public CarProjectionRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Optional<CarResponse> findResponseById(UUID id) {
+        return entityManager.createQuery(RESPONSE_BY_ID, CarResponse.class)
+                .setParameter("id", id)
+                .getResultStream()
+                .findFirst();
+    }
+
+    @Override
+    public List<CarResponse> findResponsesByIds(Collection<UUID> ids) {
+        return entityManager.createQuery(RESPONSES_BY_IDS, CarResponse.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    @Override
+    public List<CarResponse> findResponsesChangedBetween(long after, long through) {
+        return entityManager.createQuery(RESPONSES_CHANGED_BETWEEN, CarResponse.class)
+                .setParameter("after", after)
+                .setParameter("through", through)
+                .getResultList();
+    }
+
+    @Override
+    public List<CarResponse> findResponses(Specification<Car> spec, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<CarResponse> query = cb.createQuery(CarResponse.class);
+        Root<Car> car = query.from(Car.class);
+        // the same paths as in CarSpecifications, so filters and selection share one join per association
+        Path<Object> model = car.get("model");
+        Path<Object> brand = car.get("brand");
+        query.select(cb.construct(CarResponse.class,
+                car.get("id"), model.get("id"), model.get("name"), brand.get("id"), brand.get("name"),
+                car.get("yearOfProduction"), car.get("price")));
+        Predicate predicate = spec.toPredicate(car, query, cb);
+        if (predicate != null)
+            query.where(predicate);
+        query.orderBy(cb.asc(car.get("id")));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
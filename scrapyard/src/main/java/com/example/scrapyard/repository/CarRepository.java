@@ -1,11 +1,50 @@
 package com.example.scrapyard.repository;
 
+import com.example.scrapyard.domain.CarPriceStats;
+import com.example.scrapyard.domain.CarTotals;
 import com.example.scrapyard.model.Car;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface CarRepository
-        extends JpaRepository<Car, UUID> {}
+        extends JpaRepository<Car, UUID>, JpaSpecificationExecutor<Car>, CarProjectionRepository {
+    // must be consumed inside a transaction and closed, rows are fetched from the cursor in chunks
+    @EntityGraph(Car.CATALOG_GRAPH)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<Car> streamAllBy();
+
+    // change sequence numbers only, read from idx_car_change_seq to find where a page of changes ends
+    @Query("SELECT c.changeSeq FROM Car c WHERE c.changeSeq > :since ORDER BY c.changeSeq")
+    List<Long> findChangeSeqsAfter(@Param("since") long since, Limit limit);
+
+    // full scan, used to reconcile CarPriceTotals
+    @Query("SELECT COUNT(c) AS count, COALESCE(SUM(c.price), 0) AS sum FROM Car c")
+    CarTotals computeTotals();
+
+    @Query("SELECT new com.example.scrapyard.domain.CarPriceStats(b.name, COUNT(c), SUM(c.price), MIN(c.price), MAX(c.price), AVG(c.price)) " +
+            "FROM Car c JOIN c.brand b GROUP BY b.name ORDER BY b.name")
+    List<CarPriceStats> priceStatsByBrand();
+
+    @Query("SELECT new com.example.scrapyard.domain.CarPriceStats(m.name, COUNT(c), SUM(c.price), MIN(c.price), MAX(c.price), AVG(c.price)) " +
+            "FROM Car c JOIN c.model m GROUP BY m.name ORDER BY m.name")
+    List<CarPriceStats> priceStatsByModel();
+
+    @Query("SELECT new com.example.scrapyard.domain.CarPriceStats(c.yearOfProduction - MOD(c.yearOfProduction, 10), " +
+            "COUNT(c), SUM(c.price), MIN(c.price), MAX(c.price), AVG(c.price)) " +
+            "FROM Car c GROUP BY c.yearOfProduction - MOD(c.yearOfProduction, 10) " +
+            "ORDER BY c.yearOfProduction - MOD(c.yearOfProduction, 10)")
+    List<CarPriceStats> priceStatsByDecade();
+}
@@ -0,0 +1,42 @@
+package com.example.scrapyard.repository;
+
+import com.example.scrapyard.domain.CarFilter;
+import com.example.scrapyard.model.Car;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+public final class CarSpecifications {
+    private CarSpecifications() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    // every set filter has to match, an empty filter matches all cars
+    public static Specification<Car> matching(CarFilter filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (filter.getBrand() != null)
+                predicates.add(cb.equal(root.get("brand").get("name"), filter.getBrand()));
+            if (filter.getModel() != null)
+                predicates.add(cb.equal(root.get("model").get("name"), filter.getModel()));
+            if (filter.getMinYear() != null)
+                predicates.add(cb.greaterThanOrEqualTo(root.get("yearOfProduction"), filter.getMinYear()));
+            if (filter.getMaxYear() != null)
+                predicates.add(cb.lessThanOrEqualTo(root.get("yearOfProduction"), filter.getMaxYear()));
+            if (filter.getMinPrice() != null)
+                predicates.add(cb.greaterThanOrEqualTo(root.get("price"), filter.getMinPrice()));
+            if (filter.getMaxPrice() != null)
+                predicates.add(cb.lessThanOrEqualTo(root.get("price"), filter.getMaxPrice()));
+            if (filter.getOwner() != null)
+                predicates.add(cb.equal(root.get("user").get("id"), filter.getOwner()));
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    public static Specification<Car> idGreaterThan(UUID after) {
+        return (root, query, cb) -> cb.greaterThan(root.get("id"), after);
+    }
+}
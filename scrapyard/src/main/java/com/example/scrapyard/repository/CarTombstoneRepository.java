@@ -0,0 +1,25 @@
+package com.example.scrapyard.repository;
+
+import com.example.scrapyard.model.CarTombstone;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CarTombstoneRepository extends JpaRepository<CarTombstone, Long> {
+    List<CarTombstone> findByChangeSeqGreaterThanOrderByChangeSeq(long since, Limit limit);
+
+    @Query("SELECT MAX(t.changeSeq) FROM CarTombstone t WHERE t.deletedAt < :before")
+    Optional<Long> findLastSeqDeletedBefore(@Param("before") Instant before);
+
+    @Modifying
+    @Query("DELETE FROM CarTombstone t WHERE t.changeSeq <= :seq")
+    int deleteThrough(@Param("seq") long seq);
+}
@@ -1,7 +1,11 @@
 package com.example.scrapyard.repository;
 
+import com.example.scrapyard.config.CacheConfig;
 import com.example.scrapyard.model.Model;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -10,4 +14,9 @@ import java.util.UUID;
 @Repository
 public interface ModelRepository extends JpaRepository<Model, UUID> {
     Optional<Model> findByName(String name);
+
+    // unknown names are not cached so a model created later is found right away
+    @Cacheable(cacheNames = CacheConfig.MODEL_IDS, unless = "#result == null")
+    @Query("SELECT m.id FROM Model m WHERE m.name = :name")
+    Optional<UUID> findIdByName(@Param("name") String name);
 }
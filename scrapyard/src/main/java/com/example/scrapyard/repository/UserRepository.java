@@ -1,12 +1,33 @@
 package com.example.scrapyard.repository;
 
 import com.example.scrapyard.model.UserEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface UserRepository extends JpaRepository<UserEntity, UUID> {
 //    @Query("SELECT a FROM AuthEntity a WHERE a.email = ?1")
+    // roles are always needed with the user, fetch them in the same query
+    @EntityGraph(attributePaths = "roles")
     Optional<UserEntity> findByUsername(String username);
+
+    @Query("SELECT u.id FROM UserEntity u WHERE u.username = :username")
+    Optional<UUID> findIdByUsername(@Param("username") String username);
+
+    // seeds the username Bloom filter without loading whole users
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT u.username FROM UserEntity u")
+    Stream<String> streamAllUsernames();
+
+    @Query("SELECT u.username FROM UserEntity u WHERE u.createdAt > :since")
+    Stream<String> streamUsernamesCreatedAfter(@Param("since") Instant since);
 }
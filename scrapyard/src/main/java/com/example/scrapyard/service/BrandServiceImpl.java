@@ -2,11 +2,16 @@ package com.example.scrapyard.service;
 
 import com.example.scrapyard.api.exceptions.BrandExistsException;
 import com.example.scrapyard.api.exceptions.BrandNotFoundException;
+import com.example.scrapyard.config.CacheConfig;
 import com.example.scrapyard.domain.BrandDTO;
 import com.example.scrapyard.model.Brand;
 import com.example.scrapyard.repository.BrandRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -14,15 +19,20 @@ import java.util.UUID;
 @Service
 public class BrandServiceImpl implements BrandService{
     private final BrandRepository brandRepository;
+    // concurrent listings share one query, the list is shared and must not be modified
+    private final SingleFlight<String, List<Brand>> allBrands;
 
-    public BrandServiceImpl(BrandRepository brandRepository) {
+    public BrandServiceImpl(BrandRepository brandRepository, MeterRegistry meterRegistry,
+                            @Value("${scrapyard.singleflight.max-wait:2s}") Duration singleFlightMaxWait) {
         this.brandRepository = brandRepository;
+        this.allBrands = new SingleFlight<>("allBrands", singleFlightMaxWait, meterRegistry);
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.BRAND_IDS, key = "#brandDTO.name")
     public Brand addBrand(BrandDTO brandDTO) throws BrandExistsException {
         if (brandRepository.findByName(brandDTO.getName()).isEmpty()){
-mi            return brandRepository.save(Brand.builder().name(brandDTO.getName()).build());
+            return brandRepository.save(Brand.builder().name(brandDTO.getName()).build());
         }else {
             throw BrandExistsException.createWith(brandDTO.getName());
         }
@@ -39,10 +49,11 @@ mi            return brandRepository.save(Brand.builder().name(brandDTO.getName(
 
     @Override
     public List<Brand> getAllBrands() {
-        return brandRepository.findAll();
+        return allBrands.execute("all", () -> List.copyOf(brandRepository.findAll()));
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.BRAND_IDS, allEntries = true)
     public void deleteBrandById(UUID brandId) throws BrandNotFoundException {
         if (brandRepository.existsById(brandId))
             brandRepository.deleteById(brandId);
@@ -0,0 +1,17 @@
+package com.example.scrapyard.service;
+
+import com.example.scrapyard.api.exceptions.BrandNotFoundException;
+import com.example.scrapyard.api.exceptions.CarIntakeFullException;
+import com.example.scrapyard.domain.CarDTO;
+import com.example.scrapyard.domain.CarIntakeStatus;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface CarIntakeService {
+    // queues the car for the write-behind writer and returns the id it will be saved with
+    UUID submit(CarDTO car) throws CarIntakeFullException, BrandNotFoundException;
+
+    // queued and failed cars are only known to the instance that accepted them
+    Optional<CarIntakeStatus> getStatus(UUID id);
+}
@@ -0,0 +1,213 @@
+package com.example.scrapyard.service;
+
+import com.example.scrapyard.api.exceptions.BrandNotFoundException;
+import com.example.scrapyard.api.exceptions.CarIntakeFullException;
+import com.example.scrapyard.api.exceptions.CustomAuthException;
+import com.example.scrapyard.domain.CarBatchError;
+import com.example.scrapyard.domain.CarBatchResponse;
+import com.example.scrapyard.domain.CarDTO;
+import com.example.scrapyard.domain.CarIntakeStatus;
+import com.example.scrapyard.repository.BrandRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// write-behind intake: requests only enqueue, a single writer thread saves the cars in micro-batches.
+// Pending cars and failures are kept in this instance's memory, the status of a car is only known to the
+// instance that accepted it, and to the others once the car is saved
+@Slf4j
+@Service
+public class CarIntakeServiceImpl implements CarIntakeService {
+    private static final long POLL_MILLIS = 200;
+
+    private record QueuedCar(PendingCar pendingCar, SecurityContext securityContext) {}
+
+    private final CarService carService;
+    private final BrandRepository brandRepository;
+    private final BlockingQueue<QueuedCar> queue;
+    private final int maxBatchSize;
+    private final int retryAfterSeconds;
+    private final Duration shutdownTimeout;
+    // accepted and not yet written, bounded by the queue capacity plus one batch
+    private final Map<UUID, Boolean> pending = new ConcurrentHashMap<>();
+    private final Cache<UUID, List<String>> failures;
+    private final Counter rejected;
+    private final Thread writer;
+    // submitters check running and offer under the read lock, flush stops intake under the write lock,
+    // so no car lands in the queue after the writer may have seen it empty for the last time
+    private final ReadWriteLock intakeLock = new ReentrantReadWriteLock();
+    private volatile boolean running;
+
+    public CarIntakeServiceImpl(CarService carService, BrandRepository brandRepository, MeterRegistry meterRegistry,
+                                @Value("${scrapyard.cars.intake.queue-capacity:10000}") int queueCapacity,
+                                @Value("${scrapyard.cars.intake.max-batch-size:500}") int maxBatchSize,
+                                @Value("${scrapyard.cars.intake.retry-after-seconds:1}") int retryAfterSeconds,
+                                @Value("${scrapyard.cars.intake.failures-ttl:1h}") Duration failuresTtl,
+                                @Value("${scrapyard.cars.intake.shutdown-timeout:30s}") Duration shutdownTimeout) {
+        this.carService = carService;
+        this.brandRepository = brandRepository;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.shutdownTimeout = shutdownTimeout;
+        this.failures = Caffeine.newBuilder()
+                .maximumSize(queueCapacity)
+                .expireAfterWrite(failuresTtl)
+                .build();
+        this.writer = new Thread(this::drain, "car-intake-writer");
+        meterRegistry.gauge("scrapyard.cars.intake.queue.size", queue, BlockingQueue::size);
+        this.rejected = meterRegistry.counter("scrapyard.cars.intake.rejected");
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        writer.start();
+    }
+
+    // stops accepting cars and waits for the writer to save what is already queued
+    @PreDestroy
+    void flush() throws InterruptedException {
+        Lock stopping = intakeLock.writeLock();
+        stopping.lock();
+        try {
+            running = false;
+        } finally {
+            stopping.unlock();
+        }
+        writer.join(shutdownTimeout.toMillis());
+        if (writer.isAlive())
+            log.warn("Car intake writer did not finish within {}, {} cars were not saved", shutdownTimeout, queue.size());
+    }
+
+    @Override
+    public UUID submit(CarDTO car) throws CarIntakeFullException, BrandNotFoundException {
+        // checked here so an unknown brand is refused right away instead of failing in the background
+        if (brandRepository.findIdByName(car.getBrand()).isEmpty())
+            throw BrandNotFoundException.createWith(car.getBrand());
+        UUID id = UUID.randomUUID();
+        CarDTO queued = CarDTO.builder()
+                .brand(car.getBrand())
+                .model(car.getModel())
+                .yearOfProduction(car.getYearOfProduction())
+                .price(car.getPrice())
+                .build();
+        // the writer thread saves the car as the user who submitted it
+        SecurityContext submitter = SecurityContextHolder.createEmptyContext();
+        submitter.setAuthentication(SecurityContextHolder.getContext().getAuthentication());
+        pending.put(id, Boolean.TRUE);
+        boolean accepted;
+        Lock submitting = intakeLock.readLock();
+        submitting.lock();
+        try {
+            accepted = running && queue.offer(new QueuedCar(new PendingCar(id, queued), submitter));
+        } finally {
+            submitting.unlock();
+        }
+        if (!accepted) {
+            pending.remove(id);
+            rejected.increment();
+            throw CarIntakeFullException.createWith(retryAfterSeconds);
+        }
+        return id;
+    }
+
+    @Override
+    public Optional<CarIntakeStatus> getStatus(UUID id) {
+        if (pending.containsKey(id))
+            return Optional.of(new CarIntakeStatus(id, CarIntakeStatus.State.PENDING, List.of()));
+        List<String> errors = failures.getIfPresent(id);
+        if (errors != null)
+            return Optional.of(new CarIntakeStatus(id, CarIntakeStatus.State.FAILED, errors));
+        return carService.getCarById(id)
+                .map(car -> new CarIntakeStatus(id, CarIntakeStatus.State.CREATED, List.of()));
+    }
+
+    private void drain() {
+        List<QueuedCar> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                QueuedCar first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null)
+                    continue;
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Car intake writer failed", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<QueuedCar> batch) {
+        // cars of one submitter share a transaction, a batch usually comes from a handful of users
+        Map<String, List<QueuedCar>> bySubmitter = new LinkedHashMap<>();
+        for (QueuedCar queuedCar : batch)
+            bySubmitter.computeIfAbsent(queuedCar.securityContext().getAuthentication().getName(), name -> new ArrayList<>())
+                    .add(queuedCar);
+        for (List<QueuedCar> submitted : bySubmitter.values()) {
+            List<PendingCar> cars = submitted.stream().map(QueuedCar::pendingCar).toList();
+            SecurityContextHolder.setContext(submitted.get(0).securityContext());
+            try {
+                save(cars);
+            } catch (Exception e) {
+                if (cars.size() == 1) {
+                    fail(cars.get(0), e);
+                } else {
+                    // one bad row rolls back the whole transaction, the cars are saved one by one so only it fails
+                    log.warn("Could not save {} queued cars together, saving them one by one", cars.size(), e);
+                    for (PendingCar car : cars) {
+                        try {
+                            save(List.of(car));
+                        } catch (Exception carException) {
+                            fail(car, carException);
+                        }
+                    }
+                }
+            } finally {
+                SecurityContextHolder.clearContext();
+                for (PendingCar car : cars)
+                    pending.remove(car.getId());
+            }
+        }
+    }
+
+    private void save(List<PendingCar> cars) throws CustomAuthException {
+        CarBatchResponse response = carService.saveCarsWithIds(cars);
+        for (CarBatchError error : response.getErrors())
+            failures.put(cars.get(error.getIndex()).getId(), error.getErrors());
+    }
+
+    private void fail(PendingCar car, Exception e) {
+        log.error("Could not save queued car {}", car.getId(), e);
+        failures.put(car.getId(), List.of("car could not be saved"));
+    }
+}
@@ -1,21 +1,45 @@
 package com.example.scrapyard.service;
 
 import com.example.scrapyard.api.exceptions.BrandNotFoundException;
+import com.example.scrapyard.api.exceptions.ChangesExpiredException;
 import com.example.scrapyard.api.exceptions.CustomAuthException;
+import com.example.scrapyard.domain.CarBatchResponse;
+import com.example.scrapyard.domain.CarChanges;
 import com.example.scrapyard.domain.CarDTO;
+import com.example.scrapyard.domain.CarFilter;
+import com.example.scrapyard.domain.CarLookupResponse;
+import com.example.scrapyard.domain.CarPriceStats;
+import com.example.scrapyard.domain.CarResponse;
+import com.example.scrapyard.domain.PriceStatsGrouping;
 import com.example.scrapyard.model.Car;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface CarService {
     // C
-    Car saveCar(CarDTO car, String authToken) throws CustomAuthException, BrandNotFoundException;
+    // the owner is the authenticated user of the current request
+    Car saveCar(CarDTO car) throws CustomAuthException, BrandNotFoundException;
+    // creates the valid items of the batch, invalid ones are reported by index
+    CarBatchResponse saveCars(List<CarDTO> cars) throws CustomAuthException;
+    // same as saveCars, but saves each car with the id the intake already gave out for it
+    CarBatchResponse saveCarsWithIds(List<PendingCar> cars) throws CustomAuthException;
 
     // R
-    Optional<Car> getCarById(UUID id);
-    List<Car> getCars();
+    // reads return response projections, not entities
+    Optional<CarResponse> getCarById(UUID id);
+    // the cars that exist among the ids and the ids that have none, each id at most once
+    CarLookupResponse getCarsByIds(List<UUID> ids);
+    // keyset page of matching cars with ids greater than after (from the start when after is null)
+    Slice<CarResponse> getCars(UUID after, int limit, CarFilter filter);
+    long countCars(CarFilter filter);
+    // cars written and deleted after the since change sequence number (from the start when null), at most limit changes
+    CarChanges getChanges(Long since, int limit) throws ChangesExpiredException;
+    // streams every car to the action without keeping them in memory
+    void forEachCar(Consumer<Car> action);
 
     //U
     Car updateCar(Car car, Long id);
@@ -24,4 +48,6 @@ public interface CarService {
     Optional<Car> deleteCarById(UUID id);
 
     double getCarPricesSum();
+
+    List<CarPriceStats> getPriceStats(PriceStatsGrouping grouping);
 }
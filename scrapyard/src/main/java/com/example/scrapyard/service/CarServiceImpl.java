@@ -1,78 +1,281 @@
 package com.example.scrapyard.service;
 
 import com.example.scrapyard.api.exceptions.BrandNotFoundException;
+import com.example.scrapyard.api.exceptions.ChangesExpiredException;
 import com.example.scrapyard.api.exceptions.CustomAuthException;
-import com.example.scrapyard.auth.JwtGenerator;
+import com.example.scrapyard.auth.UserPrincipal;
+import com.example.scrapyard.config.CacheConfig;
+import com.example.scrapyard.domain.CarBatchError;
+import com.example.scrapyard.domain.CarBatchResponse;
+import com.example.scrapyard.domain.CarChangeToken;
+import com.example.scrapyard.domain.CarChanges;
 import com.example.scrapyard.domain.CarDTO;
-import com.example.scrapyard.model.Brand;
-import com.example.scrapyard.model.Model;
-import com.example.scrapyard.model.UserEntity;
+import com.example.scrapyard.domain.CarFilter;
+import com.example.scrapyard.domain.CarLookupResponse;
+import com.example.scrapyard.domain.CarMapper;
+import com.example.scrapyard.domain.CarPriceStats;
+import com.example.scrapyard.domain.CarResponse;
+import com.example.scrapyard.domain.PriceStatsGrouping;
+import com.example.scrapyard.model.CarChangeCounter;
+import com.example.scrapyard.model.CarPriceTotals;
+import com.example.scrapyard.model.CarTombstone;
 import com.example.scrapyard.repository.BrandRepository;
+import com.example.scrapyard.repository.CarChangeCounterRepository;
+import com.example.scrapyard.repository.CarPriceTotalsRepository;
 import com.example.scrapyard.repository.CarRepository;
+import com.example.scrapyard.repository.CarSpecifications;
+import com.example.scrapyard.repository.CarTombstoneRepository;
 import com.example.scrapyard.model.Car;
 import com.example.scrapyard.repository.ModelRepository;
 import com.example.scrapyard.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class CarServiceImpl implements CarService{
+    private static final int LOOKUP_CHUNK_SIZE = 500;
+
     private final CarRepository carRepository;
     private final BrandRepository brandRepository;
     private final ModelRepository modelRepository;
-    private final JwtGenerator jwtGenerator;
     private final UserRepository userRepository;
+    private final CarPriceTotalsRepository carPriceTotalsRepository;
+    private final CarChangeCounterRepository carChangeCounterRepository;
+    private final CarTombstoneRepository carTombstoneRepository;
+    private final EntityManager entityManager;
+    private final ModelService modelService;
+    private final CarMapper carMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final int batchSize;
+    // concurrent identical reads share one query
+    private final SingleFlight<UUID, Optional<CarResponse>> carsById;
+    private final SingleFlight<String, Double> priceSums;
 
-    public CarServiceImpl(CarRepository carRepository, BrandRepository brandRepository, ModelRepository modelRepository, JwtGenerator jwtGenerator, UserRepository userRepository) {
+    public CarServiceImpl(CarRepository carRepository, BrandRepository brandRepository, ModelRepository modelRepository, UserRepository userRepository, CarPriceTotalsRepository carPriceTotalsRepository, CarChangeCounterRepository carChangeCounterRepository, CarTombstoneRepository carTombstoneRepository, EntityManager entityManager, ModelService modelService, CarMapper carMapper, PlatformTransactionManager transactionManager, Validator validator,
+                          MeterRegistry meterRegistry, @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize,
+                          @Value("${scrapyard.singleflight.max-wait:2s}") Duration singleFlightMaxWait) {
         this.carRepository = carRepository;
         this.brandRepository = brandRepository;
         this.modelRepository = modelRepository;
-        this.jwtGenerator = jwtGenerator;
         this.userRepository = userRepository;
+        this.carPriceTotalsRepository = carPriceTotalsRepository;
+        this.carChangeCounterRepository = carChangeCounterRepository;
+        this.carTombstoneRepository = carTombstoneRepository;
+        this.entityManager = entityManager;
+        this.modelService = modelService;
+        this.carMapper = carMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.batchSize = batchSize;
+        this.carsById = new SingleFlight<>("carById", singleFlightMaxWait, meterRegistry);
+        this.priceSums = new SingleFlight<>("carPricesSum", singleFlightMaxWait, meterRegistry);
     }
 
     @Override
-    public Car saveCar(CarDTO car, String authToken) throws CustomAuthException, BrandNotFoundException {
-        if (brandRepository.findByName(car.getBrand()).isPresent()){
-            if (!authToken.startsWith("Bearer ")){
-                throw CustomAuthException.createWith("Invalid token format.");
+    @CacheEvict(cacheNames = CacheConfig.CAR_PRICE_STATS, allEntries = true)
+    public Car saveCar(CarDTO car) throws CustomAuthException, BrandNotFoundException {
+        // brand and model ids usually come from the catalog cache, then a single insert
+        UUID brandId = brandRepository.findIdByName(car.getBrand())
+                .orElseThrow(() -> BrandNotFoundException.createWith(car.getBrand()));
+        UUID userId = currentUserId();
+        // resolved before the car transaction so a new model commits on its own connection. If the car insert then
+        // fails the model stays behind without cars; that is accepted, a model is only a shared catalog name that
+        // the next car with it reuses, and creating it inside the car transaction would hold the change counter
+        // lock while waiting on the model stripe and could cache the id of a model that was rolled back
+        UUID modelId = modelService.getOrCreateModelId(car.getModel());
+        return transactionTemplate.execute(status -> {
+            long changeSeq = reserveChangeSeqs(1);
+            Car carEntity = carMapper.toCar(car,
+                    modelRepository.getReferenceById(modelId),
+                    brandRepository.getReferenceById(brandId),
+                    userRepository.getReferenceById(userId));
+            carEntity.setChangeSeq(changeSeq);
+            Car saved = carRepository.save(carEntity);
+            carPriceTotalsRepository.add(CarPriceTotals.ROW_ID, 1, saved.getPrice());
+            return saved;
+        });
+    }
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.CAR_PRICE_STATS, allEntries = true)
+    public CarBatchResponse saveCars(List<CarDTO> cars) throws CustomAuthException {
+        return saveCars(cars, null);
+    }
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.CAR_PRICE_STATS, allEntries = true)
+    public CarBatchResponse saveCarsWithIds(List<PendingCar> cars) throws CustomAuthException {
+        return saveCars(cars.stream().map(PendingCar::getCar).toList(), cars.stream().map(PendingCar::getId).toList());
+    }
+
+    // ids is null when the cars get new ids, otherwise the id of each car by position
+    private CarBatchResponse saveCars(List<CarDTO> cars, List<UUID> ids) throws CustomAuthException {
+        List<CarBatchError> errors = new ArrayList<>();
+        Map<String, Optional<UUID>> brandIds = new HashMap<>();
+        Map<String, UUID> modelIds = new HashMap<>();
+        List<Integer> accepted = new ArrayList<>();
+        for (int i = 0; i < cars.size(); i++) {
+            CarDTO car = cars.get(i);
+            if (car == null) {
+                errors.add(new CarBatchError(i, List.of("car: must not be null")));
+                continue;
             }
-            String username = jwtGenerator.getUsernameFromJwt(authToken.split(" ")[1]);
-            if (username == null){
-                throw CustomAuthException.createWith("Invalid token format.");
+            List<String> violations = validator.validate(car).stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .toList();
+            if (!violations.isEmpty()) {
+                errors.add(new CarBatchError(i, violations));
+                continue;
             }
-            if (userRepository.findByUsername(username).isEmpty()){
-                throw CustomAuthException.createWith("Incorrect user information.");
+            // each distinct brand and model is resolved once for the whole batch
+            if (brandIds.computeIfAbsent(car.getBrand(), brandRepository::findIdByName).isEmpty()) {
+                errors.add(new CarBatchError(i, List.of(BrandNotFoundException.createWith(car.getBrand()).getMessage())));
+                continue;
             }
-            UserEntity user = userRepository.findByUsername(username).get();
-            Brand brand = brandRepository.findByName(car.getBrand()).get();
-            Model model;
-            if (modelRepository.findByName(car.getModel()).isPresent())
-                model = modelRepository.findByName(car.getModel()).get();
+            accepted.add(i);
+        }
+        if (accepted.isEmpty())
+            return new CarBatchResponse(List.of(), errors);
+
+        UUID userId = currentUserId();
+        // committed ahead of the cars like in saveCar, a failed batch can leave new models without cars
+        for (int i : accepted)
+            modelIds.computeIfAbsent(cars.get(i).getModel(), modelService::getOrCreateModelId);
+
+        List<UUID> created = transactionTemplate.execute(status -> {
+            long changeSeq = reserveChangeSeqs(accepted.size());
+            List<UUID> saved = new ArrayList<>(accepted.size());
+            double priceSum = 0;
+            for (int i : accepted) {
+                CarDTO car = cars.get(i);
+                Car carEntity = carMapper.toCar(car,
+                        modelRepository.getReferenceById(modelIds.get(car.getModel())),
+                        brandRepository.getReferenceById(brandIds.get(car.getBrand()).get()),
+                        userRepository.getReferenceById(userId));
+                if (ids != null)
+                    carEntity.setId(ids.get(i));
+                carEntity.setChangeSeq(changeSeq++);
+                entityManager.persist(carEntity);
+                saved.add(carEntity.getId());
+                priceSum += car.getPrice();
+                // send a full JDBC batch and keep the persistence context small
+                if (saved.size() % batchSize == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            carPriceTotalsRepository.add(CarPriceTotals.ROW_ID, saved.size(), priceSum);
+            return saved;
+        });
+        return new CarBatchResponse(created, errors);
+    }
+
+    @Override
+    public Optional<CarResponse> getCarById(UUID id) {
+        return carsById.execute(id, () -> carRepository.findResponseById(id));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CarLookupResponse getCarsByIds(List<UUID> ids) {
+        // null entries name no car, they are left out of both lists
+        List<UUID> distinct = ids.stream().filter(Objects::nonNull).distinct().toList();
+        Map<UUID, CarResponse> found = new HashMap<>();
+        // one IN query per chunk keeps the parameter list within what databases accept
+        for (int from = 0; from < distinct.size(); from += LOOKUP_CHUNK_SIZE)
+            for (CarResponse car : carRepository.findResponsesByIds(
+                    distinct.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, distinct.size()))))
+                found.put(car.getId(), car);
+        List<CarResponse> cars = new ArrayList<>(found.size());
+        List<UUID> missing = new ArrayList<>();
+        for (UUID id : distinct) {
+            CarResponse car = found.get(id);
+            if (car != null)
+                cars.add(car);
             else
-                model = modelRepository.save(Model.builder().name(car.getModel()).build());
-            Car carEntity = Car.builder()
-                    .price(car.getPrice())
-                    .yearOfProduction(car.getYearOfProduction())
-                    .model(model)
-                    .brand(brand)
-                    .user(user).build();
-            return carRepository.save(carEntity);
+                missing.add(id);
         }
-        throw BrandNotFoundException.createWith(car.getBrand());
+        return new CarLookupResponse(cars, missing);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CarChanges getChanges(Long since, int limit) throws ChangesExpiredException {
+        long after = since == null ? 0 : since;
+        // the page ends at the limit-th change counted over cars and tombstones together
+        List<Long> carSeqs = carRepository.findChangeSeqsAfter(after, Limit.of(limit + 1));
+        List<CarTombstone> tombstones = carTombstoneRepository.findByChangeSeqGreaterThanOrderByChangeSeq(after, Limit.of(limit + 1));
+        // checked after reading the tombstones, so a purge that removed some of them before the read is seen here
+        if (since != null && since < carChangeCounterRepository.findPurgedThroughSeqById(CarChangeCounter.ROW_ID))
+            throw ChangesExpiredException.createWith(CarChangeToken.encode(since));
+        List<Long> seqs = Stream.concat(carSeqs.stream(), tombstones.stream().map(CarTombstone::getChangeSeq))
+                .sorted()
+                .toList();
+        if (seqs.isEmpty())
+            return new CarChanges(List.of(), List.of(), CarChangeToken.encode(after), false);
+        long through = seqs.get(Math.min(seqs.size(), limit) - 1);
+        List<UUID> deletes = tombstones.stream()
+                .filter(tombstone -> tombstone.getChangeSeq() <= through)
+                .map(CarTombstone::getCarId)
+                .toList();
+        return new CarChanges(carRepository.findResponsesChangedBetween(after, through), deletes,
+                CarChangeToken.encode(through), seqs.size() > limit);
     }
 
     @Override
-    public Optional<Car> getCarById(UUID id) {
-        return carRepository.findById(id);
+    public Slice<CarResponse> getCars(UUID after, int limit, CarFilter filter) {
+        Specification<Car> spec = CarSpecifications.matching(filter);
+        if (after != null)
+            spec = spec.and(CarSpecifications.idGreaterThan(after));
+        // one extra row tells whether there is a next page without a count query
+        List<CarResponse> cars = carRepository.findResponses(spec, limit + 1);
+        boolean hasNext = cars.size() > limit;
+        return new SliceImpl<>(hasNext ? cars.subList(0, limit) : cars, PageRequest.of(0, limit), hasNext);
     }
 
     @Override
-    public List<Car> getCars() {
-        return carRepository.findAll();
+    public long countCars(CarFilter filter) {
+        return carRepository.count(CarSpecifications.matching(filter));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachCar(Consumer<Car> action) {
+        try (Stream<Car> cars = carRepository.streamAllBy()) {
+            cars.forEach(car -> {
+                action.accept(car);
+                // drop the car from the persistence context so memory use does not grow with the table
+                entityManager.detach(car);
+            });
+        }
     }
 
     @Override
@@ -81,13 +284,53 @@ public class CarServiceImpl implements CarService{
     }
 
     @Override
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CAR_PRICE_STATS, allEntries = true)
     public Optional<Car> deleteCarById(UUID id) {
         Optional<Car> car = carRepository.findById(id);
-        carRepository.deleteById(id);
+        car.ifPresent(c -> {
+            long changeSeq = reserveChangeSeqs(1);
+            carRepository.delete(c);
+            carTombstoneRepository.save(new CarTombstone(changeSeq, c.getId(), Instant.now()));
+            carPriceTotalsRepository.add(CarPriceTotals.ROW_ID, -1, -c.getPrice());
+        });
         return car;
     }
 
+    @Override
     public double getCarPricesSum() {
-        return getCars().stream().mapToDouble(Car::getPrice).sum();
+        // the totals row is created by CarTotalsReconciler on startup, scan only until it exists
+        return priceSums.execute("sum", () -> carPriceTotalsRepository.findById(CarPriceTotals.ROW_ID)
+                .map(CarPriceTotals::getPriceSum)
+                .orElseGet(() -> carRepository.computeTotals().getSum()));
+    }
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.CAR_PRICE_STATS, key = "#grouping")
+    public List<CarPriceStats> getPriceStats(PriceStatsGrouping grouping) {
+        return switch (grouping) {
+            case BRAND -> carRepository.priceStatsByBrand();
+            case MODEL -> carRepository.priceStatsByModel();
+            case DECADE -> carRepository.priceStatsByDecade();
+        };
+    }
+
+    // reserves count consecutive change sequence numbers and returns the first, the counter row stays locked
+    // until the calling write transaction ends
+    private long reserveChangeSeqs(int count) {
+        carChangeCounterRepository.advance(CarChangeCounter.ROW_ID, count);
+        return carChangeCounterRepository.findLastSeqById(CarChangeCounter.ROW_ID) - count + 1;
+    }
+
+    // owner of new cars, JwtAuthenticationFilter has already verified the token and set the principal
+    private UUID currentUserId() throws CustomAuthException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated())
+            throw CustomAuthException.createWith("Incorrect user information.");
+        // tokens carry the user id, only older ones need the lookup by username
+        if (authentication.getPrincipal() instanceof UserPrincipal principal && principal.getId() != null)
+            return principal.getId();
+        return userRepository.findIdByUsername(authentication.getName())
+                .orElseThrow(() -> CustomAuthException.createWith("Incorrect user information."));
     }
 }
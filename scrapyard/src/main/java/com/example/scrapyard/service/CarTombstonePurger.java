@@ -0,0 +1,43 @@
+package com.example.scrapyard.service;
+
+import com.example.scrapyard.model.CarChangeCounter;
+import com.example.scrapyard.repository.CarChangeCounterRepository;
+import com.example.scrapyard.repository.CarTombstoneRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Deletes tombstones of cars deleted longer ago than the retention, and records how far it got so change
+ * tokens from before that point are answered with 410 instead of silently missing deletes.
+ */
+@Slf4j
+@Component
+public class CarTombstonePurger {
+    private final CarTombstoneRepository carTombstoneRepository;
+    private final CarChangeCounterRepository carChangeCounterRepository;
+    private final Duration retention;
+
+    public CarTombstonePurger(CarTombstoneRepository carTombstoneRepository,
+                              CarChangeCounterRepository carChangeCounterRepository,
+                              @Value("${scrapyard.cars.changes.tombstone-retention:7d}") Duration retention) {
+        this.carTombstoneRepository = carTombstoneRepository;
+        this.carChangeCounterRepository = carChangeCounterRepository;
+        this.retention = retention;
+    }
+
+    @Scheduled(fixedDelayString = "${scrapyard.cars.changes.purge-interval-ms:3600000}")
+    @Transactional
+    public void purge() {
+        carTombstoneRepository.findLastSeqDeletedBefore(Instant.now().minus(retention)).ifPresent(seq -> {
+            carChangeCounterRepository.markPurgedThrough(CarChangeCounter.ROW_ID, seq);
+            int purged = carTombstoneRepository.deleteThrough(seq);
+            log.info("Purged {} car tombstones up to change {}", purged, seq);
+        });
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.scrapyard.service;
+
+import com.example.scrapyard.domain.CarTotals;
+import com.example.scrapyard.model.CarPriceTotals;
+import com.example.scrapyard.repository.CarPriceTotalsRepository;
+import com.example.scrapyard.repository.CarRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Compares the maintained CarPriceTotals row with a full count over the car table, reports the difference
+ * as a metric and overwrites the row when they disagree. The row is created at startup from the car table,
+ * before this instance saves any car, so the increments of the first writes are never lost.
+ */
+@Slf4j
+@Component
+public class CarTotalsReconciler {
+    // prices are doubles, ignore rounding noise accumulated by the incremental updates
+    private static final double SUM_TOLERANCE = 0.01;
+
+    private final CarRepository carRepository;
+    private final CarPriceTotalsRepository carPriceTotalsRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Counter driftDetected;
+    private volatile long lastCountDrift;
+    private volatile double lastSumDrift;
+
+    public CarTotalsReconciler(CarRepository carRepository, CarPriceTotalsRepository carPriceTotalsRepository,
+                               JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.carRepository = carRepository;
+        this.carPriceTotalsRepository = carPriceTotalsRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.driftDetected = Counter.builder("scrapyard.cars.totals.drift.detected")
+                .description("Reconciliations that found the maintained car totals out of date")
+                .register(meterRegistry);
+        Gauge.builder("scrapyard.cars.totals.drift.count", this, r -> r.lastCountDrift)
+                .description("Maintained car count minus actual car count at the last reconciliation")
+                .register(meterRegistry);
+        Gauge.builder("scrapyard.cars.totals.drift.sum", this, r -> r.lastSumDrift)
+                .description("Maintained price sum minus actual price sum at the last reconciliation")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void createRow() {
+        try {
+            jdbcTemplate.update("INSERT INTO car_price_totals (id, car_count, price_sum) " +
+                    "SELECT ?, COUNT(*), COALESCE(SUM(price), 0) FROM car " +
+                    "WHERE NOT EXISTS (SELECT 1 FROM car_price_totals WHERE id = ?)",
+                    CarPriceTotals.ROW_ID, CarPriceTotals.ROW_ID);
+        } catch (DuplicateKeyException e) {
+            // another instance created it at the same time
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${scrapyard.cars.totals.reconcile-interval-ms:300000}")
+    @Transactional
+    public void reconcile() {
+        // lock the row first so writers wait for us and no increment is lost when we overwrite it
+        Optional<CarPriceTotals> stored = carPriceTotalsRepository.findWithLockById(CarPriceTotals.ROW_ID);
+        CarTotals actual = carRepository.computeTotals();
+
+        if (stored.isEmpty()) {
+            // only when someone deleted the row, created like at startup
+            log.warn("Car totals row is missing, creating it");
+            createRow();
+            return;
+        }
+
+        CarPriceTotals totals = stored.get();
+        lastCountDrift = totals.getCarCount() - actual.getCount();
+        lastSumDrift = totals.getPriceSum() - actual.getSum();
+        if (lastCountDrift != 0 || Math.abs(lastSumDrift) > SUM_TOLERANCE) {
+            log.warn("Car totals drifted by {} cars and {} in prices, resetting", lastCountDrift, lastSumDrift);
+            driftDetected.increment();
+            totals.setCarCount(actual.getCount());
+            totals.setPriceSum(actual.getSum());
+        }
+    }
+}
@@ -1,15 +1,19 @@
 package com.example.scrapyard.service;
 
 import com.example.scrapyard.api.exceptions.UsernameExistsException;
+import com.example.scrapyard.auth.UserPrincipal;
+import com.example.scrapyard.auth.UsernameBloomFilter;
+import com.example.scrapyard.config.CacheConfig;
 import com.example.scrapyard.domain.RegisterDTO;
 import com.example.scrapyard.model.Role;
 import com.example.scrapyard.model.UserEntity;
 import com.example.scrapyard.repository.RoleRepository;
 import com.example.scrapyard.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -26,40 +30,57 @@ public class CustomUserDetailsServiceImpl implements CustomUserDetailsService {
     private final RoleRepository roleRepository;
 
     private final PasswordEncoder passwordEncoder;
+    private final UsernameBloomFilter usernameFilter;
 
     @Autowired
     public CustomUserDetailsServiceImpl(UserRepository userRepository, RoleRepository roleRepository,
-                                        PasswordEncoder passwordEncoder) {
+                                        PasswordEncoder passwordEncoder, UsernameBloomFilter usernameFilter) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
+        this.usernameFilter = usernameFilter;
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS, key = "#accountDto.username")
     public UserEntity registerNewUserAccount(RegisterDTO accountDto) throws UsernameExistsException {
+        // only a probably taken username is worth a query, it saves hashing a password that is then rejected
+        if (usernameFilter.mightContain(accountDto.getUsername())
+                && userRepository.findIdByUsername(accountDto.getUsername()).isPresent())
+            throw UsernameExistsException.createWith(accountDto.getUsername());
 
-        if (userRepository.findByUsername(accountDto.getUsername()).isEmpty()){
-            Optional<Role> presentRole = roleRepository.findByName("USER");
-            if (presentRole.isEmpty()){
-                roleRepository.save(Role.builder().name("USER").build());
-            }
-            presentRole = roleRepository.findByName("USER");
-            Role userRole = presentRole.get();
+        Optional<Role> presentRole = roleRepository.findByName("USER");
+        if (presentRole.isEmpty()){
+            roleRepository.save(Role.builder().name("USER").build());
+        }
+        presentRole = roleRepository.findByName("USER");
+        Role userRole = presentRole.get();
 
-            UserEntity newUserEntity = UserEntity.builder()
-                    .username(accountDto.getUsername())
-                    .passwordHash(passwordEncoder.encode(accountDto.getPassword()))
-                    .roles(Collections.singletonList(userRole))
-                    .build();
-            return userRepository.save(newUserEntity);
+        UserEntity newUserEntity = UserEntity.builder()
+                .username(accountDto.getUsername())
+                .passwordHash(passwordEncoder.encode(accountDto.getPassword()))
+                .roles(Collections.singletonList(userRole))
+                .build();
+        try {
+            UserEntity saved = userRepository.save(newUserEntity);
+            usernameFilter.put(saved.getUsername());
+            return saved;
+        } catch (DataIntegrityViolationException e) {
+            // the unique constraint on username decides concurrent registrations of the same name
+            throw UsernameExistsException.createWith(accountDto.getUsername());
         }
-        throw UsernameExistsException.createWith(accountDto.getUsername());
     }
 
     @Override
     public org.springframework.security.core.userdetails.UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        UserEntity user = userRepository.findByUsername(username).orElseThrow(() -> new UsernameNotFoundException("Username not found"));
-        return new User(user.getUsername(), user.getPasswordHash(), mapRolesToAuthorities(user.getRoles()));
+        // a definite miss skips the query, DaoAuthenticationProvider still spends a dummy hash on it
+        if (!usernameFilter.mightContain(username))
+            throw new UsernameNotFoundException("Username not found");
+        UserEntity user = userRepository.findByUsername(username).orElseThrow(() -> {
+            usernameFilter.recordFalsePositive();
+            return new UsernameNotFoundException("Username not found");
+        });
+        return new UserPrincipal(user.getId(), user.getUsername(), user.getPasswordHash(), mapRolesToAuthorities(user.getRoles()));
     }
 
     private Collection<GrantedAuthority> mapRolesToAuthorities(List<Role> roles){
@@ -0,0 +1,7 @@
+package com.example.scrapyard.service;
+
+import java.util.UUID;
+
+public interface ModelService {
+    UUID getOrCreateModelId(String name);
+}
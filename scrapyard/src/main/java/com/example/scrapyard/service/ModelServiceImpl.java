@@ -0,0 +1,66 @@
+package com.example.scrapyard.service;
+
+import com.example.scrapyard.config.CacheConfig;
+import com.example.scrapyard.model.Model;
+import com.example.scrapyard.repository.ModelRepository;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Service
+public class ModelServiceImpl implements ModelService {
+    // creating different models only contends when their names share a stripe
+    private static final int LOCK_STRIPES = 64;
+
+    private final ModelRepository modelRepository;
+    private final CacheManager cacheManager;
+    private final TransactionTemplate insertTransaction;
+    private final Lock[] locks = new Lock[LOCK_STRIPES];
+
+    public ModelServiceImpl(ModelRepository modelRepository, CacheManager cacheManager, PlatformTransactionManager transactionManager) {
+        this.modelRepository = modelRepository;
+        this.cacheManager = cacheManager;
+        this.insertTransaction = new TransactionTemplate(transactionManager);
+        this.insertTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (int i = 0; i < LOCK_STRIPES; i++)
+            locks[i] = new ReentrantLock();
+    }
+
+    @Override
+    public UUID getOrCreateModelId(String name) {
+        return modelRepository.findIdByName(name).orElseGet(() -> createIfAbsent(name));
+    }
+
+    private UUID createIfAbsent(String name) {
+        Lock lock = locks[Math.floorMod(name.hashCode(), LOCK_STRIPES)];
+        lock.lock();
+        try {
+            // another thread may have created the model while this one waited for the stripe
+            UUID id = modelRepository.findIdByName(name).orElseGet(() -> insert(name));
+            Cache modelIds = cacheManager.getCache(CacheConfig.MODEL_IDS);
+            if (modelIds != null)
+                modelIds.put(name, id);
+            return id;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private UUID insert(String name) {
+        try {
+            return insertTransaction.execute(status ->
+                    modelRepository.saveAndFlush(Model.builder().name(name).build()).getId());
+        } catch (DataIntegrityViolationException e) {
+            // the unique constraint caught a concurrent insert from outside this instance
+            return modelRepository.findIdByName(name).orElseThrow(() -> e);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.scrapyard.service;
+
+import com.example.scrapyard.domain.CarDTO;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.UUID;
+
+// a car accepted by the intake together with the id it was promised, never part of the API
+@Getter
+@AllArgsConstructor
+public class PendingCar {
+    private UUID id;
+    private CarDTO car;
+}
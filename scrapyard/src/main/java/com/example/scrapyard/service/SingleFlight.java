@@ -0,0 +1,86 @@
+package com.example.scrapyard.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key: the first caller runs the load, callers arriving while it is in
+ * flight wait for it and get the same result (or exception). Nothing is kept once the load finishes, so this
+ * never serves anything older than the call that was already running. A caller waits at most maxWait for the
+ * shared load, then runs its own, so one hung query does not stall every caller of the key. Shared results must
+ * be treated as read-only by every caller.
+ */
+public class SingleFlight<K, V> {
+    private static final String CALLS_DESCRIPTION = "Calls that ran their load, shared the load of an identical " +
+            "call in flight, or gave up waiting for it and ran their own";
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final long maxWaitNanos;
+    private final Counter executed;
+    private final Counter coalesced;
+    private final Counter timedOut;
+
+    public SingleFlight(String name, Duration maxWait, MeterRegistry meterRegistry) {
+        this.maxWaitNanos = maxWait.toNanos();
+        this.executed = calls(name, "executed", meterRegistry);
+        this.coalesced = calls(name, "coalesced", meterRegistry);
+        this.timedOut = calls(name, "timed-out", meterRegistry);
+    }
+
+    private static Counter calls(String name, String result, MeterRegistry meterRegistry) {
+        return Counter.builder("scrapyard.singleflight.calls")
+                .tag("name", name)
+                .tag("result", result)
+                .description(CALLS_DESCRIPTION)
+                .register(meterRegistry);
+    }
+
+    public V execute(K key, Supplier<V> load) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, call);
+        if (running != null) {
+            coalesced.increment();
+            return await(running, load);
+        }
+        executed.increment();
+        try {
+            V result = load.get();
+            call.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    private V await(CompletableFuture<V> running, Supplier<V> load) {
+        try {
+            return running.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            // rethrow what the load threw, as if this call had run it
+            if (e.getCause() instanceof RuntimeException runtimeException)
+                throw runtimeException;
+            if (e.getCause() instanceof Error error)
+                throw error;
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            // the shared load stays in flight for the callers still waiting on it
+            timedOut.increment();
+            return load.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a call in flight", e);
+        }
+    }
+}
@@ -1,16 +1,37 @@
 package com.example.scrapyard.api;
 
 import com.example.scrapyard.auth.JwtGenerator;
+import com.example.scrapyard.auth.UserPrincipal;
+import com.example.scrapyard.domain.AuthResponseDTO;
+import com.example.scrapyard.domain.LoginDTO;
+import com.example.scrapyard.domain.RevokeTokenDTO;
 import com.example.scrapyard.service.CustomUserDetailsServiceImpl;
 import com.google.gson.Gson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.List;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
 @TestPropertySource(locations = "classpath:application-test.properties")
@@ -27,6 +48,97 @@ class AuthControllerTest {
     @MockBean
     private CustomUserDetailsServiceImpl userService;
 
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private String username;
+
+    @BeforeEach
+    void setup() {
+        gson = new Gson();
+        // the user cache outlives a single test, every test logs in as a different user
+        username = "user-" + UUID.randomUUID();
+        given(userService.loadUserByUsername(username)).willReturn(new UserPrincipal(UUID.randomUUID(), username,
+                passwordEncoder.encode("secret"), List.of(new SimpleGrantedAuthority("USER"))));
+    }
+
+    @Nested
+    @DisplayName("POST /auth/login tests")
+    class LoginTests {
+        @DisplayName("correct password -> 200 with token, user loaded once")
+        @Test
+        void whenPasswordMatchesLoginReturnsTokenAndLoadsUserOnce() throws Exception {
+            MvcResult result = login("secret")
+                    .andExpect(status().isOk())
+                    .andReturn();
+
+            String token = gson.fromJson(result.getResponse().getContentAsString(), AuthResponseDTO.class).getAccessToken();
+            assertEquals(username, jwtGenerator.parseClaims(token).getSubject());
+            verify(userService, times(1)).loadUserByUsername(username);
+        }
+
+        @DisplayName("second login -> user served from the cache")
+        @Test
+        void whenLoggingInAgainLoginUsesCachedUser() throws Exception {
+            login("secret").andExpect(status().isOk());
+            login("secret").andExpect(status().isOk());
+
+            verify(userService, times(1)).loadUserByUsername(username);
+        }
+
+        @DisplayName("wrong password -> 403")
+        @Test
+        void whenPasswordIsWrongLoginReturns403() throws Exception {
+            login("wrong").andExpect(status().isForbidden());
+        }
+
+        private ResultActions login(String password) throws Exception {
+            return mockMvc.perform(post("/auth/login")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(gson.toJson(new LoginDTO(username, password)))
+                    .characterEncoding("utf-8"));
+        }
+    }
+
+    @Nested
+    @DisplayName("POST /auth/logout and /auth/revoke tests")
+    class RevocationTests {
+        @DisplayName("logout -> 200, the same token is rejected afterwards")
+        @Test
+        void whenLoggedOutTokenIsRejected() throws Exception {
+            String token = jwtGenerator.createTestToken(username);
+
+            mockMvc.perform(post("/auth/logout").header("Authorization", "Bearer " + token))
+                    .andExpect(status().isOk());
+            mockMvc.perform(post("/auth/logout").header("Authorization", "Bearer " + token))
+                    .andExpect(status().isUnauthorized());
+        }
+
+        @DisplayName("admin revokes a token -> 200, the token is rejected afterwards")
+        @Test
+        void whenAdminRevokesTokenItIsRejected() throws Exception {
+            String token = jwtGenerator.createTestToken(username);
+
+            revoke(jwtGenerator.createTestToken("admin", true), token)
+                    .andExpect(status().isOk());
+            mockMvc.perform(post("/auth/logout").header("Authorization", "Bearer " + token))
+                    .andExpect(status().isUnauthorized());
+        }
+
+        @DisplayName("user revokes a token -> 403")
+        @Test
+        void whenNotAdminRevokeReturns403() throws Exception {
+            String token = jwtGenerator.createTestToken(username);
 
+            revoke(token, jwtGenerator.createTestToken("other")).andExpect(status().isForbidden());
+        }
 
-}
\ No newline at end of file
+        private ResultActions revoke(String authToken, String revokedToken) throws Exception {
+            return mockMvc.perform(post("/auth/revoke")
+                    .header("Authorization", "Bearer " + authToken)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(gson.toJson(new RevokeTokenDTO(revokedToken)))
+                    .characterEncoding("utf-8"));
+        }
+    }
+}
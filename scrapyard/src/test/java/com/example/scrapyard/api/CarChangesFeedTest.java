@@ -0,0 +1,174 @@
+package com.example.scrapyard.api;
+
+import com.example.scrapyard.auth.JwtGenerator;
+import com.example.scrapyard.domain.CarChanges;
+import com.example.scrapyard.domain.CarDTO;
+import com.example.scrapyard.domain.CarResponse;
+import com.example.scrapyard.model.Brand;
+import com.example.scrapyard.model.UserEntity;
+import com.example.scrapyard.repository.BrandRepository;
+import com.example.scrapyard.repository.CarRepository;
+import com.example.scrapyard.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// follows the change feed against the real database while cars are created and deleted
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+@TestPropertySource(locations = "classpath:application-test.properties")
+@AutoConfigureMockMvc
+class CarChangesFeedTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtGenerator jwtGenerator;
+
+    @Autowired
+    private BrandRepository brandRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Gson gson = new Gson();
+    private String username;
+    private CarDTO carDTO;
+
+    @BeforeEach
+    void setup() {
+        String suffix = UUID.randomUUID().toString();
+        username = "owner-" + suffix;
+        userRepository.save(UserEntity.builder().username(username).passwordHash("xyz").build());
+        Brand brand = brandRepository.save(Brand.builder().name("Brand-" + suffix).build());
+        carDTO = CarDTO.builder()
+                .brand(brand.getName())
+                .model("Model-" + suffix)
+                .price(1200.2)
+                .yearOfProduction(2001)
+                .build();
+    }
+
+    @DisplayName("cars created and deleted after a token -> upserts and deletes, then nothing")
+    @Test
+    void whenFollowingTokenOnlyLaterChangesAreReturned() throws Exception {
+        String token = catchUp();
+        UUID kept = createCar();
+        UUID deleted = createCar();
+        mockMvc.perform(delete("/car/{id}", deleted)
+                        .header("Authorization", "Bearer " + jwtGenerator.createTestToken(username, true))
+                        .header("guid", UUID.randomUUID()))
+                .andExpect(status().is2xxSuccessful());
+
+        CarChanges changes = changes(get("/car/changes").param("since", token));
+
+        assertEquals(List.of(kept), changes.getUpserts().stream().map(CarResponse::getId).toList());
+        assertEquals(carDTO.getBrand(), changes.getUpserts().get(0).getBrand().getName());
+        assertEquals(List.of(deleted), changes.getDeletes());
+        assertFalse(changes.isHasMore());
+        CarChanges after = changes(get("/car/changes").param("since", changes.getNext()));
+        assertTrue(after.getUpserts().isEmpty());
+        assertTrue(after.getDeletes().isEmpty());
+        assertEquals(changes.getNext(), after.getNext());
+    }
+
+    @DisplayName("more changes than the limit -> pages that together hold every change once")
+    @Test
+    void whenChangesExceedLimitTheyArePaged() throws Exception {
+        String token = catchUp();
+        List<UUID> created = List.of(createCar(), createCar(), createCar());
+
+        CarChanges first = changes(get("/car/changes").param("since", token).param("limit", "2"));
+        CarChanges second = changes(get("/car/changes").param("since", first.getNext()).param("limit", "2"));
+
+        assertTrue(first.isHasMore());
+        assertFalse(second.isHasMore());
+        assertEquals(created, Stream.concat(first.getUpserts().stream(), second.getUpserts().stream())
+                .map(CarResponse::getId).toList());
+    }
+
+    @DisplayName("car modified after a token -> upsert with the new values, once")
+    @Test
+    void whenCarIsModifiedItIsReturnedAgain() throws Exception {
+        UUID modified = createCar();
+        createCar();
+        String token = catchUp();
+
+        // there is no update endpoint yet, any write through JPA has to reach the feed
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                carRepository.findById(modified).orElseThrow().setPrice(999.5));
+
+        CarChanges changes = changes(get("/car/changes").param("since", token));
+        assertEquals(List.of(modified), changes.getUpserts().stream().map(CarResponse::getId).toList());
+        assertEquals(999.5, changes.getUpserts().get(0).getPrice());
+        assertTrue(changes.getDeletes().isEmpty());
+        CarChanges after = changes(get("/car/changes").param("since", changes.getNext()));
+        assertTrue(after.getUpserts().isEmpty());
+    }
+
+    // follows the feed to its end, returns the token for what comes after
+    private String catchUp() throws Exception {
+        String token = null;
+        CarChanges changes;
+        do {
+            MockHttpServletRequestBuilder request = get("/car/changes").param("limit", "500");
+            if (token != null)
+                request.param("since", token);
+            changes = changes(request);
+            token = changes.getNext();
+        } while (changes.isHasMore());
+        return token;
+    }
+
+    private CarChanges changes(MockHttpServletRequestBuilder request) throws Exception {
+        String body = mockMvc.perform(request
+                        .header("Authorization", "Bearer " + jwtGenerator.createTestToken(username))
+                        .header("guid", UUID.randomUUID()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(body, CarChanges.class);
+    }
+
+    private UUID createCar() throws Exception {
+        String location = mockMvc.perform(post("/car")
+                        .header("Authorization", "Bearer " + jwtGenerator.createTestToken(username))
+                        .header("guid", UUID.randomUUID())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(gson.toJson(carDTO))
+                        .characterEncoding("utf-8"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getHeader("Location");
+        return UUID.fromString(location.substring(location.lastIndexOf('/') + 1));
+    }
+}
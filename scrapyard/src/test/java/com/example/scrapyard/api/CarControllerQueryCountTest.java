@@ -0,0 +1,223 @@
+package com.example.scrapyard.api;
+
+import com.example.scrapyard.auth.JwtGenerator;
+import com.example.scrapyard.domain.CarDTO;
+import com.example.scrapyard.model.Brand;
+import com.example.scrapyard.model.Model;
+import com.example.scrapyard.model.Role;
+import com.example.scrapyard.model.UserEntity;
+import com.example.scrapyard.repository.BrandRepository;
+import com.example.scrapyard.repository.ModelRepository;
+import com.example.scrapyard.repository.UserRepository;
+import com.google.gson.Gson;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// runs against the real database and counts the JDBC statements one request prepares
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+class CarControllerQueryCountTest {
+    // brand, model and owner lookups, change counter update and read, the car insert and the price totals update
+    private static final long CREATE_CAR_STATEMENTS = 7;
+    // brand and model ids served from the catalog cache
+    private static final long CREATE_CAR_WARM_STATEMENTS = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtGenerator jwtGenerator;
+
+    @Autowired
+    private BrandRepository brandRepository;
+
+    @Autowired
+    private ModelRepository modelRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private final Gson gson = new Gson();
+    private String username;
+    private UUID userId;
+    private CarDTO carDTO;
+
+    @BeforeEach
+    void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        String suffix = UUID.randomUUID().toString();
+        username = "owner-" + suffix;
+        userId = userRepository.save(UserEntity.builder().username(username).passwordHash("xyz").build()).getId();
+        Brand brand = brandRepository.save(Brand.builder().name("Brand-" + suffix).build());
+        carDTO = CarDTO.builder()
+                .brand(brand.getName())
+                .model("Model-" + suffix)
+                .price(1200.2)
+                .yearOfProduction(2001)
+                .build();
+    }
+
+    @DisplayName("POST /car, existing model -> within statement budget")
+    @Test
+    void whenModelExistsCreateCarStaysWithinStatementBudget() throws Exception {
+        modelRepository.save(Model.builder().name(carDTO.getModel()).build());
+
+        long statements = countStatements();
+
+        assertTrue(statements <= CREATE_CAR_STATEMENTS,
+                "expected at most " + CREATE_CAR_STATEMENTS + " statements, was " + statements);
+    }
+
+    @DisplayName("POST /car, new model -> model lookup under lock and insert")
+    @Test
+    void whenModelIsNewCreateCarAddsOnlyModelInsert() throws Exception {
+        long statements = countStatements();
+
+        assertTrue(statements <= CREATE_CAR_STATEMENTS + 2,
+                "expected at most " + (CREATE_CAR_STATEMENTS + 2) + " statements, was " + statements);
+    }
+
+    @DisplayName("POST /car, brand and model ids cached -> no catalog lookups")
+    @Test
+    void whenCatalogIsCachedCreateCarSkipsBrandAndModelLookups() throws Exception {
+        modelRepository.save(Model.builder().name(carDTO.getModel()).build());
+        brandRepository.findIdByName(carDTO.getBrand());
+        modelRepository.findIdByName(carDTO.getModel());
+
+        long statements = countStatements();
+
+        assertTrue(statements <= CREATE_CAR_WARM_STATEMENTS,
+                "expected at most " + CREATE_CAR_WARM_STATEMENTS + " statements, was " + statements);
+    }
+
+    @DisplayName("POST /car, token carries the user id -> no owner lookup")
+    @Test
+    void whenTokenCarriesUserIdCreateCarSkipsOwnerLookup() throws Exception {
+        modelRepository.save(Model.builder().name(carDTO.getModel()).build());
+
+        long statements = countStatements(jwtGenerator.createTestToken(username, userId));
+
+        assertTrue(statements <= CREATE_CAR_STATEMENTS - 1,
+                "expected at most " + (CREATE_CAR_STATEMENTS - 1) + " statements, was " + statements);
+    }
+
+    @DisplayName("GET /car -> cars with brand and model in one query, owners and roles never loaded")
+    @Test
+    void whenListingCarsOwnersAreNotLoaded() throws Exception {
+        // several cars of one brand, model and owner
+        countStatements();
+        countStatements();
+        statistics.clear();
+
+        mockMvc.perform(get("/car")
+                        .header("Authorization", "Bearer " + jwtGenerator.createTestToken(username))
+                        .header("guid", UUID.randomUUID()))
+                .andExpect(status().isOk());
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityStatistics(UserEntity.class.getName()).getLoadCount());
+        assertEquals(0, statistics.getEntityStatistics(Role.class.getName()).getLoadCount());
+    }
+
+    @DisplayName("GET /car/{id} -> car with brand and model in one query")
+    @Test
+    void whenGettingCarByIdOneQueryIsUsed() throws Exception {
+        String location = mockMvc.perform(post("/car")
+                        .header("Authorization", "Bearer " + jwtGenerator.createTestToken(username))
+                        .header("guid", UUID.randomUUID())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(gson.toJson(carDTO))
+                        .characterEncoding("utf-8"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getHeader("Location");
+        statistics.clear();
+
+        mockMvc.perform(get(location)
+                        .header("Authorization", "Bearer " + jwtGenerator.createTestToken(username))
+                        .header("guid", UUID.randomUUID()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.brand.name").value(carDTO.getBrand()))
+                .andExpect(jsonPath("$.model.name").value(carDTO.getModel()));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityStatistics(UserEntity.class.getName()).getLoadCount());
+    }
+
+    @DisplayName("POST /car/lookup -> all cars in one query, missing ids reported")
+    @Test
+    void whenLookingUpCarsOneQueryIsUsed() throws Exception {
+        UUID first = createCar();
+        UUID second = createCar();
+        UUID missing = UUID.randomUUID();
+        statistics.clear();
+
+        mockMvc.perform(post("/car/lookup")
+                        .header("Authorization", "Bearer " + jwtGenerator.createTestToken(username))
+                        .header("guid", UUID.randomUUID())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(gson.toJson(List.of(second, missing, first)))
+                        .characterEncoding("utf-8"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.found[0].id").value(second.toString()))
+                .andExpect(jsonPath("$.found[1].id").value(first.toString()))
+                .andExpect(jsonPath("$.found[1].brand.name").value(carDTO.getBrand()))
+                .andExpect(jsonPath("$.missing[0]").value(missing.toString()));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityStatistics(UserEntity.class.getName()).getLoadCount());
+    }
+
+    private UUID createCar() throws Exception {
+        String location = mockMvc.perform(post("/car")
+                        .header("Authorization", "Bearer " + jwtGenerator.createTestToken(username))
+                        .header("guid", UUID.randomUUID())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(gson.toJson(carDTO))
+                        .characterEncoding("utf-8"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getHeader("Location");
+        return UUID.fromString(location.substring(location.lastIndexOf('/') + 1));
+    }
+
+    private long countStatements() throws Exception {
+        return countStatements(jwtGenerator.createTestToken(username));
+    }
+
+    private long countStatements(String token) throws Exception {
+        statistics.clear();
+        mockMvc.perform(post("/car")
+                        .header("Authorization", "Bearer " + token)
+                        .header("guid", UUID.randomUUID())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(gson.toJson(carDTO))
+                        .characterEncoding("utf-8"))
+                .andExpect(status().isCreated());
+        return statistics.getPrepareStatementCount();
+    }
+}
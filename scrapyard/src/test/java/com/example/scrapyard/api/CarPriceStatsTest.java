@@ -0,0 +1,141 @@
+package com.example.scrapyard.api;
+
+import com.example.scrapyard.auth.JwtGenerator;
+import com.example.scrapyard.domain.CarDTO;
+import com.example.scrapyard.domain.CarPriceStats;
+import com.example.scrapyard.model.Brand;
+import com.example.scrapyard.model.UserEntity;
+import com.example.scrapyard.repository.BrandRepository;
+import com.example.scrapyard.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// runs the GROUP BY queries against the real database; brands and models are new for every test, decades are
+// shared with the rest of the table, so those are checked by how much they grow
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+@TestPropertySource(locations = "classpath:application-test.properties")
+@AutoConfigureMockMvc
+class CarPriceStatsTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtGenerator jwtGenerator;
+
+    @Autowired
+    private BrandRepository brandRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Gson gson = new Gson();
+    private String username;
+    private String brandA;
+    private String brandB;
+    private String modelA1;
+    private String modelA2;
+    private String modelB1;
+
+    @BeforeEach
+    void setup() {
+        String suffix = UUID.randomUUID().toString();
+        username = "owner-" + suffix;
+        userRepository.save(UserEntity.builder().username(username).passwordHash("xyz").build());
+        brandA = brandRepository.save(Brand.builder().name("BrandA-" + suffix).build()).getName();
+        brandB = brandRepository.save(Brand.builder().name("BrandB-" + suffix).build()).getName();
+        modelA1 = "ModelA1-" + suffix;
+        modelA2 = "ModelA2-" + suffix;
+        modelB1 = "ModelB1-" + suffix;
+    }
+
+    @DisplayName("cars across brands, models and decades -> each group with its count, sum, min, max and average")
+    @Test
+    void whenCarsAreSeededStatsAreGrouped() throws Exception {
+        Map<String, CarPriceStats> decadesBefore = stats("/car/stats/decade");
+
+        createCar(brandA, modelA1, 1803, 100);
+        createCar(brandA, modelA1, 1809, 300);
+        createCar(brandA, modelA2, 1810, 200);
+        createCar(brandB, modelB1, 1815, 500);
+        createCar(brandB, modelB1, 1819, 1000);
+
+        Map<String, CarPriceStats> brands = stats("/car/stats/brand");
+        assertStats(brands.get(brandA), 3, 600, 100, 300, 200);
+        assertStats(brands.get(brandB), 2, 1500, 500, 1000, 750);
+
+        Map<String, CarPriceStats> models = stats("/car/stats/model");
+        assertStats(models.get(modelA1), 2, 400, 100, 300, 200);
+        assertStats(models.get(modelA2), 1, 200, 200, 200, 200);
+        assertStats(models.get(modelB1), 2, 1500, 500, 1000, 750);
+
+        // 1809 belongs to the 1800s, 1810 starts the next decade
+        Map<String, CarPriceStats> decades = stats("/car/stats/decade");
+        assertFalse(decades.containsKey("1809"));
+        assertFalse(decades.containsKey("1819"));
+        assertEquals(count(decadesBefore, "1800") + 2, decades.get("1800").getCount());
+        assertEquals(sum(decadesBefore, "1800") + 400, decades.get("1800").getSum(), 0.001);
+        assertEquals(count(decadesBefore, "1810") + 3, decades.get("1810").getCount());
+        assertEquals(sum(decadesBefore, "1810") + 1700, decades.get("1810").getSum(), 0.001);
+    }
+
+    private static void assertStats(CarPriceStats stats, long count, double sum, double min, double max, double avg) {
+        assertEquals(count, stats.getCount());
+        assertEquals(sum, stats.getSum(), 0.001);
+        assertEquals(min, stats.getMin(), 0.001);
+        assertEquals(max, stats.getMax(), 0.001);
+        assertEquals(avg, stats.getAvg(), 0.001);
+    }
+
+    private static long count(Map<String, CarPriceStats> stats, String group) {
+        return stats.containsKey(group) ? stats.get(group).getCount() : 0;
+    }
+
+    private static double sum(Map<String, CarPriceStats> stats, String group) {
+        return stats.containsKey(group) ? stats.get(group).getSum() : 0;
+    }
+
+    private Map<String, CarPriceStats> stats(String path) throws Exception {
+        String body = mockMvc.perform(get(path)
+                        .header("Authorization", "Bearer " + jwtGenerator.createTestToken(username, true))
+                        .header("guid", UUID.randomUUID()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return Arrays.stream(objectMapper.readValue(body, CarPriceStats[].class))
+                .collect(Collectors.toMap(CarPriceStats::getGroup, Function.identity()));
+    }
+
+    private void createCar(String brand, String model, int year, double price) throws Exception {
+        CarDTO car = CarDTO.builder().brand(brand).model(model).yearOfProduction(year).price(price).build();
+        mockMvc.perform(post("/car")
+                        .header("Authorization", "Bearer " + jwtGenerator.createTestToken(username))
+                        .header("guid", UUID.randomUUID())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(gson.toJson(car))
+                        .characterEncoding("utf-8"))
+                .andExpect(status().isCreated());
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.scrapyard.auth;
+
+import com.example.scrapyard.api.exceptions.PasswordHashingBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedPasswordEncoderTest {
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // stands in for Argon2, every call blocks until the test releases it
+    private final PasswordEncoder slowEncoder = new PasswordEncoder() {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            await();
+            return "hash:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            await();
+            return encodedPassword.equals("hash:" + rawPassword);
+        }
+
+        private void await() {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    };
+
+    private final BoundedPasswordEncoder encoder =
+            new BoundedPasswordEncoder(slowEncoder, 1, 1, Duration.ofSeconds(5), 1, meterRegistry);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        encoder.close();
+    }
+
+    @DisplayName("free pool -> delegates to the wrapped encoder")
+    @Test
+    void whenPoolIsFreeEncodeAndMatchesDelegate() {
+        release.countDown();
+
+        String hash = encoder.encode("secret");
+
+        assertEquals("hash:secret", hash);
+        assertTrue(encoder.matches("secret", hash));
+    }
+
+    @DisplayName("thread busy and queue full -> rejected without waiting")
+    @Test
+    void whenPoolIsSaturatedEncodeIsRejectedImmediately() throws Exception {
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("first"));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("second"));
+        while (meterRegistry.get("scrapyard.auth.password.queue.size").gauge().value() < 1)
+            Thread.onSpinWait();
+
+        long started = System.nanoTime();
+        PasswordHashingBusyException busy = assertThrows(PasswordHashingBusyException.class, () -> encoder.encode("third"));
+
+        assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(1));
+        assertEquals(1, busy.getRetryAfterSeconds());
+        assertEquals(1, meterRegistry.get("scrapyard.auth.password.rejected").counter().count());
+        release.countDown();
+        assertEquals("hash:first", running.get(5, TimeUnit.SECONDS));
+        assertEquals("hash:second", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @DisplayName("hashing takes longer than the max wait -> rejected")
+    @Test
+    void whenHashingTakesTooLongMatchesIsRejected() {
+        BoundedPasswordEncoder impatient =
+                new BoundedPasswordEncoder(slowEncoder, 1, 1, Duration.ofMillis(50), 1, new SimpleMeterRegistry());
+        try {
+            assertThrows(PasswordHashingBusyException.class, () -> impatient.matches("secret", "hash:secret"));
+        } finally {
+            impatient.close();
+        }
+    }
+}
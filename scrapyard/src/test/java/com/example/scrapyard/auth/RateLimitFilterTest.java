@@ -0,0 +1,103 @@
+package com.example.scrapyard.auth;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class RateLimitFilterTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RateLimitFilter filter = new RateLimitFilter(properties(), meterRegistry);
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @DisplayName("bucket empty -> 429 with Retry-After, throttled request counted")
+    @Test
+    void whenBucketIsEmptyRequestIsThrottled() throws Exception {
+        authenticate("user");
+
+        assertEquals(200, get("/car").getStatus());
+        assertEquals(200, get("/car").getStatus());
+        MockHttpServletResponse throttled = get("/car");
+
+        assertEquals(429, throttled.getStatus());
+        assertNotNull(throttled.getHeader("Retry-After"));
+        assertEquals(1, meterRegistry.get("scrapyard.ratelimit.throttled").tag("route", "car-list").counter().count());
+    }
+
+    @DisplayName("buckets are per user and per route")
+    @Test
+    void whenOtherUserOrRouteRequestIsNotThrottled() throws Exception {
+        authenticate("user");
+        get("/car");
+        get("/car");
+
+        assertEquals(200, get("/car/stats/brand").getStatus());
+        authenticate("other");
+        assertEquals(200, get("/car").getStatus());
+    }
+
+    @DisplayName("/auth/** is limited per client address")
+    @Test
+    void whenAuthRouteBucketIsKeyedByAddress() throws Exception {
+        assertEquals(200, get("/auth/login", "10.0.0.1").getStatus());
+        authenticate("user");
+        assertEquals(429, get("/auth/login", "10.0.0.1").getStatus());
+        assertEquals(200, get("/auth/login", "10.0.0.2").getStatus());
+    }
+
+    private MockHttpServletResponse get(String path) throws Exception {
+        return get(path, "127.0.0.1");
+    }
+
+    private MockHttpServletResponse get(String path, String remoteAddress) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setServletPath(path);
+        request.setRemoteAddr(remoteAddress);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static void authenticate(String username) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                username, null, List.of(new SimpleGrantedAuthority("USER"))));
+    }
+
+    // refills are slow enough that no token comes back while a test runs
+    private static RateLimitProperties properties() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.getDefaultLimit().setCapacity(5);
+        properties.getDefaultLimit().setRefillPerSecond(0.01);
+        properties.setRoutes(List.of(
+                route("auth", null, "/auth/**", RateLimitProperties.KeyBy.IP, 1),
+                route("car-list", "GET", "/car", RateLimitProperties.KeyBy.USER, 2)));
+        return properties;
+    }
+
+    private static RateLimitProperties.Route route(String name, String method, String pattern,
+                                                   RateLimitProperties.KeyBy keyBy, long capacity) {
+        RateLimitProperties.Route route = new RateLimitProperties.Route();
+        route.setName(name);
+        route.setMethod(method);
+        route.setPattern(pattern);
+        route.setKeyBy(keyBy);
+        route.setCapacity(capacity);
+        route.setRefillPerSecond(0.01);
+        return route;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.scrapyard.auth;
+
+import com.example.scrapyard.model.RevokedToken;
+import com.example.scrapyard.repository.RevokedTokenRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// another instance revoking a token is simulated by writing the row past this instance's list
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+@TestPropertySource(locations = "classpath:application-test.properties")
+class TokenRevocationListTest {
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @DisplayName("row revoked elsewhere -> revoked here after the next poll")
+    @Test
+    void whenAnotherInstanceRevokesTokenPollPicksItUp() {
+        UUID tokenId = UUID.randomUUID();
+        Instant expiresAt = Instant.now().plus(Duration.ofHours(1));
+        revokedTokenRepository.save(RevokedToken.builder()
+                .tokenId(tokenId).expiresAt(expiresAt).revokedAt(Instant.now()).build());
+
+        tokenRevocationList.poll();
+
+        assertTrue(tokenRevocationList.isRevoked(tokenId, expiresAt));
+    }
+
+    @DisplayName("row revoked elsewhere but already expired -> not added")
+    @Test
+    void whenRevokedTokenHasExpiredPollSkipsIt() {
+        UUID tokenId = UUID.randomUUID();
+        Instant expiresAt = Instant.now().minusSeconds(1);
+        revokedTokenRepository.save(RevokedToken.builder()
+                .tokenId(tokenId).expiresAt(expiresAt).revokedAt(Instant.now()).build());
+
+        tokenRevocationList.poll();
+
+        assertFalse(tokenRevocationList.isRevoked(tokenId, expiresAt));
+    }
+}
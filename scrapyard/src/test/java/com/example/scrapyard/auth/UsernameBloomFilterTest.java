@@ -0,0 +1,76 @@
+package com.example.scrapyard.auth;
+
+import com.example.scrapyard.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class UsernameBloomFilterTest {
+    private static final int USERS = 10_000;
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UsernameBloomFilter filter = new UsernameBloomFilter(userRepository, meterRegistry, USERS, 0.01,
+            Duration.ofSeconds(30));
+    private final List<String> usernames = IntStream.range(0, USERS).mapToObj(i -> "user-" + i).toList();
+
+    @DisplayName("before seeding -> every username might be present")
+    @Test
+    void whenNotSeededEveryUsernameMightBePresent() {
+        assertTrue(filter.mightContain("anyone"));
+    }
+
+    @DisplayName("seeded -> no false negatives and about the configured false-positive rate")
+    @Test
+    void whenSeededExistingUsernamesArePresentAndFewOthersAre() {
+        seed();
+
+        usernames.forEach(username -> assertTrue(filter.mightContain(username), username));
+        long falsePositives = IntStream.range(0, USERS)
+                .filter(i -> filter.mightContain(UUID.randomUUID().toString()))
+                .count();
+        assertTrue(falsePositives < USERS * 0.02, "false positives: " + falsePositives);
+        assertTrue(meterRegistry.get("scrapyard.auth.username-filter.expected-fpp").gauge().value() < 0.02);
+    }
+
+    @DisplayName("registered after seeding -> present")
+    @Test
+    void whenUsernameIsPutAfterSeedingItIsPresent() {
+        seed();
+        assertFalse(filter.mightContain("newcomer"));
+
+        filter.put("newcomer");
+
+        assertTrue(filter.mightContain("newcomer"));
+    }
+
+    @DisplayName("registered on another instance -> present after the next poll")
+    @Test
+    void whenAnotherInstanceRegistersUserPollAddsIt() {
+        seed();
+        assertFalse(filter.mightContain("elsewhere"));
+        given(userRepository.streamUsernamesCreatedAfter(any())).willReturn(Stream.of("elsewhere"));
+
+        filter.poll();
+
+        assertTrue(filter.mightContain("elsewhere"));
+    }
+
+    private void seed() {
+        given(userRepository.count()).willReturn((long) USERS / 2);
+        given(userRepository.streamAllUsernames()).willReturn(usernames.stream());
+        filter.reseed();
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.scrapyard.config;
+
+import com.example.scrapyard.api.exceptions.BulkheadFullException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BulkheadInterceptorTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final BulkheadInterceptor interceptor = new BulkheadInterceptor(properties(), meterRegistry);
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Bulkhead("reads")
+    static class Handlers {
+        public void read() {}
+
+        @Bulkhead("analytics")
+        public void sum() {}
+    }
+
+    @DisplayName("group full -> BulkheadFullException, other groups unaffected")
+    @Test
+    void whenGroupIsFullRequestIsRejected() throws Exception {
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest(), response, handler("sum")));
+
+        BulkheadFullException e = assertThrows(BulkheadFullException.class,
+                () -> interceptor.preHandle(new MockHttpServletRequest(), response, handler("sum")));
+
+        assertEquals("analytics", e.getGroup());
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest(), response, handler("read")));
+        assertEquals(1, meterRegistry.get("scrapyard.bulkhead.rejected").tag("group", "analytics").counter().count());
+    }
+
+    @DisplayName("finished request -> permit released")
+    @Test
+    void whenRequestCompletesPermitIsReleased() throws Exception {
+        MockHttpServletRequest first = new MockHttpServletRequest();
+        interceptor.preHandle(first, response, handler("sum"));
+        interceptor.afterCompletion(first, response, handler("sum"), null);
+
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest(), response, handler("sum")));
+    }
+
+    @DisplayName("streamed response -> permit released when the request thread is, async dispatch not limited")
+    @Test
+    void whenResponseIsStreamedPermitIsReleasedEarly() throws Exception {
+        MockHttpServletRequest streamed = new MockHttpServletRequest();
+        interceptor.preHandle(streamed, response, handler("sum"));
+        interceptor.afterConcurrentHandlingStarted(streamed, response, handler("sum"));
+
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest(), response, handler("sum")));
+        streamed.setDispatcherType(DispatcherType.ASYNC);
+        assertTrue(interceptor.preHandle(streamed, response, handler("sum")));
+    }
+
+    private static HandlerMethod handler(String method) throws NoSuchMethodException {
+        return new HandlerMethod(new Handlers(), Handlers.class.getMethod(method));
+    }
+
+    private static BulkheadProperties properties() {
+        BulkheadProperties.Group analytics = new BulkheadProperties.Group();
+        analytics.setMaxConcurrent(1);
+        analytics.setMaxWaiting(1);
+        analytics.setMaxWait(Duration.ofMillis(10));
+        BulkheadProperties properties = new BulkheadProperties();
+        properties.getGroups().put("analytics", analytics);
+        return properties;
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.scrapyard.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrencyLimitFilterTest {
+    private static final long MILLIS = 1_000_000;
+    private static final String BY_ID = "GET /car/{id}";
+    private static final String EXPORT = "GET /car/export";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @DisplayName("limit reached -> 503 at once, rejection counted")
+    @Test
+    void whenLimitIsReachedRequestIsShed() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, 1, 10, 0.9, 2.0, 100, meterRegistry);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<MockHttpServletResponse> running = CompletableFuture.supplyAsync(() -> perform(filter, () -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        MockHttpServletResponse shed = perform(filter, () -> {});
+        release.countDown();
+
+        assertEquals(503, shed.getStatus());
+        assertEquals("1", shed.getHeader("Retry-After"));
+        assertEquals(200, running.get(5, TimeUnit.SECONDS).getStatus());
+        assertEquals(1, meterRegistry.get("scrapyard.concurrency.rejected").counter().count());
+    }
+
+    @DisplayName("latency well above the baseline -> limit cut once per round trip")
+    @Test
+    void whenLatencyRisesLimitShrinks() {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(100, 5, 200, 0.5, 2.0, 100, meterRegistry);
+        filter.onSample(BY_ID, 10 * MILLIS, 100, false);
+
+        filter.onSample(BY_ID, 1000 * MILLIS, 100, false);
+        filter.onSample(BY_ID, 1000 * MILLIS, 100, false);
+
+        assertEquals(50, filter.getLimit());
+    }
+
+    @DisplayName("server errors -> limit cut")
+    @Test
+    void whenRequestFailsLimitShrinks() {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(100, 5, 200, 0.5, 2.0, 100, meterRegistry);
+
+        filter.onSample(BY_ID, 10 * MILLIS, 1, true);
+
+        assertEquals(50, filter.getLimit());
+    }
+
+    @DisplayName("503 with Retry-After shed by a bulkhead -> not a sample, plain 503 -> limit cut")
+    @Test
+    void whenRequestIsShedDownstreamLimitStays() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(100, 5, 200, 0.5, 2.0, 100, meterRegistry);
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/car"), new MockHttpServletResponse(), (req, res) -> {
+            ((MockHttpServletResponse) res).setStatus(503);
+            ((MockHttpServletResponse) res).setHeader("Retry-After", "1");
+        });
+        assertEquals(100, filter.getLimit());
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/car"), new MockHttpServletResponse(), (req, res) ->
+                ((MockHttpServletResponse) res).setStatus(503));
+        assertEquals(50, filter.getLimit());
+    }
+
+    @DisplayName("fast requests using the limit -> limit grows, idle service -> limit stays")
+    @Test
+    void whenLatencyIsSteadyUsedLimitGrows() {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(10, 5, 200, 0.5, 2.0, 100, meterRegistry);
+
+        for (int i = 0; i < 100; i++)
+            filter.onSample(BY_ID, 10 * MILLIS, 1, false);
+        assertEquals(10, filter.getLimit());
+
+        for (int i = 0; i < 100; i++)
+            filter.onSample(BY_ID, 10 * MILLIS, 10, false);
+        assertTrue(filter.getLimit() > 10);
+    }
+
+    @DisplayName("fast and slow routes mixed under load -> each judged against its own baseline, limit grows")
+    @Test
+    void whenRoutesDifferInLatencyLimitIsNotCut() {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(10, 5, 200, 0.5, 2.0, 100, meterRegistry);
+
+        for (int i = 0; i < 200; i++) {
+            filter.onSample(BY_ID, 5 * MILLIS, 10, false);
+            filter.onSample(EXPORT, 500 * MILLIS, 10, false);
+        }
+
+        assertTrue(filter.getLimit() > 10);
+        assertEquals(500, meterRegistry.get("scrapyard.concurrency.rtt.baseline").tag("route", EXPORT).gauge().value(), 0.001);
+        assertEquals(5, meterRegistry.get("scrapyard.concurrency.rtt.baseline").tag("route", BY_ID).gauge().value(), 0.001);
+    }
+
+    @DisplayName("slow route getting slower -> limit cut even while a fast route is steady")
+    @Test
+    void whenOneRouteSlowsDownLimitShrinks() {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(100, 5, 200, 0.5, 2.0, 100, meterRegistry);
+        filter.onSample(BY_ID, 5 * MILLIS, 100, false);
+        filter.onSample(EXPORT, 500 * MILLIS, 100, false);
+
+        filter.onSample(BY_ID, 5 * MILLIS, 100, false);
+        filter.onSample(EXPORT, 5000 * MILLIS, 100, false);
+
+        assertEquals(50, filter.getLimit());
+    }
+
+    @DisplayName("limit cut to the minimum, then light load -> limit recovers to the initial limit, not beyond")
+    @Test
+    void whenLoadIsLightCutLimitRecovers() {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(10, 5, 200, 0.5, 2.0, 100, meterRegistry);
+        filter.onSample(BY_ID, 10 * MILLIS, 1, true);
+        assertEquals(5, filter.getLimit());
+
+        for (int i = 0; i < 1000; i++)
+            filter.onSample(BY_ID, 10 * MILLIS, 1, false);
+
+        assertEquals(10, filter.getLimit());
+    }
+
+    private interface Handler {
+        void handle() throws Exception;
+    }
+
+    private static MockHttpServletResponse perform(ConcurrencyLimitFilter filter, Handler handler) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/car");
+        request.setServletPath("/car");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            filter.doFilter(request, response, (req, res) -> {
+                try {
+                    handler.handle();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return response;
+    }
+}
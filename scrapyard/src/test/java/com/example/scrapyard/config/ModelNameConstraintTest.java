@@ -0,0 +1,65 @@
+package com.example.scrapyard.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// a database from before the constraint, with the tables cut down to the columns the merge touches
+class ModelNameConstraintTest {
+    private final UUID focus = new UUID(0, 1);
+    private final UUID focusCopy = new UUID(0, 2);
+    private final UUID golf = new UUID(0, 3);
+    private final UUID car = UUID.randomUUID();
+    private final UUID carOfCopy = UUID.randomUUID();
+
+    private JdbcTemplate jdbcTemplate;
+    private ModelNameConstraint modelNameConstraint;
+
+    @BeforeEach
+    void setup() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:model-name-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE model (id UUID PRIMARY KEY, name VARCHAR(255))");
+        jdbcTemplate.execute("CREATE TABLE car (id UUID PRIMARY KEY, model_id UUID, change_seq BIGINT)");
+        jdbcTemplate.execute("CREATE TABLE car_change_counter (id INT PRIMARY KEY, last_seq BIGINT, purged_through_seq BIGINT)");
+        jdbcTemplate.update("INSERT INTO car_change_counter VALUES (1, 10, 0)");
+        jdbcTemplate.update("INSERT INTO model VALUES (?, 'Focus'), (?, 'Focus'), (?, 'Golf')", focus, focusCopy, golf);
+        jdbcTemplate.update("INSERT INTO car VALUES (?, ?, 1), (?, ?, 2)", car, focus, carOfCopy, focusCopy);
+        modelNameConstraint = new ModelNameConstraint(jdbcTemplate, new DataSourceTransactionManager(dataSource), null);
+    }
+
+    @DisplayName("duplicate model names -> merged into one model, its cars renumbered, constraint added")
+    @Test
+    void whenConstraintIsMissingDuplicatesAreMergedFirst() {
+        modelNameConstraint.ensure();
+
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM model", Integer.class));
+        assertEquals(focus, jdbcTemplate.queryForObject("SELECT model_id FROM car WHERE id = ?", UUID.class, carOfCopy));
+        assertEquals(11, jdbcTemplate.queryForObject("SELECT change_seq FROM car WHERE id = ?", Long.class, carOfCopy));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT change_seq FROM car WHERE id = ?", Long.class, car));
+        assertEquals(11, jdbcTemplate.queryForObject("SELECT last_seq FROM car_change_counter", Long.class));
+        assertThrows(DataIntegrityViolationException.class, () ->
+                jdbcTemplate.update("INSERT INTO model VALUES (?, 'Golf')", UUID.randomUUID()));
+    }
+
+    @DisplayName("constraint already there -> nothing changes")
+    @Test
+    void whenConstraintExistsNothingIsMerged() {
+        modelNameConstraint.ensure();
+
+        modelNameConstraint.ensure();
+
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM model", Integer.class));
+        assertEquals(11, jdbcTemplate.queryForObject("SELECT last_seq FROM car_change_counter", Long.class));
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.scrapyard.domain;
+
+import com.example.scrapyard.model.Brand;
+import com.example.scrapyard.model.Car;
+import com.example.scrapyard.model.Model;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.modelmapper.ModelMapper;
+
+import java.lang.management.ManagementFactory;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * ModelMapper against CarMapper for a single car in each direction, run with -Dbenchmark=true.
+ * Prints nanoseconds and bytes allocated per mapping; it asserts nothing about speed.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CarMapperBenchmarkTest {
+    private static final int WARMUP = 200_000;
+    private static final int ITERATIONS = 1_000_000;
+
+    private final CarMapper carMapper = new CarMapper();
+    private final ModelMapper modelMapper = new ModelMapper();
+    private final Model model = new Model(UUID.randomUUID(), "Focus");
+    private final Brand brand = new Brand(UUID.randomUUID(), "Ford");
+    private final Car car = Car.builder().id(UUID.randomUUID()).model(model).brand(brand).yearOfProduction(2001).price(2000).build();
+    private final CarDTO dto = new CarDTO("Focus", "Ford", 2001, 2000);
+    // keeps the results reachable so the mapping is not optimized away
+    private Object sink;
+
+    @Test
+    void carToResponse() {
+        measure("Car -> CarResponse, ModelMapper", () -> modelMapper.map(car, CarResponse.class));
+        measure("Car -> CarResponse, CarMapper", () -> carMapper.toResponse(car));
+    }
+
+    @Test
+    void dtoToCar() {
+        measure("CarDTO -> Car, ModelMapper", () -> modelMapper.map(dto, Car.class));
+        measure("CarDTO -> Car, CarMapper", () -> carMapper.toCar(dto, model, brand, null));
+    }
+
+    private void measure(String name, Supplier<Object> mapping) {
+        for (int i = 0; i < WARMUP; i++)
+            sink = mapping.get();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long started = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++)
+            sink = mapping.get();
+        long elapsed = System.nanoTime() - started;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        System.out.printf("%-35s %10.1f ns/mapping %8d bytes/mapping%n",
+                name, (double) elapsed / ITERATIONS, allocated / ITERATIONS);
+        assertNotNull(sink);
+    }
+}
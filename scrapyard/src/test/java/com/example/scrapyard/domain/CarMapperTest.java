@@ -0,0 +1,70 @@
+package com.example.scrapyard.domain;
+
+import com.example.scrapyard.model.Brand;
+import com.example.scrapyard.model.Car;
+import com.example.scrapyard.model.Model;
+import com.example.scrapyard.model.UserEntity;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+// the mapper replaced ModelMapper, responses must stay field for field what ModelMapper produced
+class CarMapperTest {
+    private final CarMapper carMapper = new CarMapper();
+    private final ModelMapper modelMapper = new ModelMapper();
+    private final Gson gson = new Gson();
+
+    private final Model model = new Model(UUID.randomUUID(), "Focus");
+    private final Brand brand = new Brand(UUID.randomUUID(), "Ford");
+    private final UserEntity user = UserEntity.builder().id(UUID.randomUUID()).username("owner").build();
+
+    @DisplayName("car -> same response as ModelMapper")
+    @Test
+    void toResponseMatchesModelMapper() {
+        Car car = Car.builder().id(UUID.randomUUID()).model(model).brand(brand).yearOfProduction(2001).price(2000.5)
+                .user(user).changeSeq(7L).lastModified(Instant.now()).build();
+
+        CarResponse response = carMapper.toResponse(car);
+
+        assertEquals(gson.toJsonTree(modelMapper.map(car, CarResponse.class)), gson.toJsonTree(response));
+        assertEquals(new CatalogRef(model.getId(), model.getName()), response.getModel());
+        assertEquals(new CatalogRef(brand.getId(), brand.getName()), response.getBrand());
+    }
+
+    @DisplayName("car without brand and model -> same response as ModelMapper")
+    @Test
+    void toResponseWithoutAssociationsMatchesModelMapper() {
+        Car car = Car.builder().id(UUID.randomUUID()).yearOfProduction(1999).price(10).build();
+
+        CarResponse response = carMapper.toResponse(car);
+
+        assertEquals(gson.toJsonTree(modelMapper.map(car, CarResponse.class)), gson.toJsonTree(response));
+        assertNull(response.getModel());
+        assertNull(response.getBrand());
+    }
+
+    @DisplayName("dto -> car with the dto's values and the given associations, id left unset")
+    @Test
+    void toCarCopiesValues() {
+        CarDTO dto = new CarDTO("Focus", "Ford", 2001, 2000.5);
+
+        Car car = carMapper.toCar(dto, model, brand, user);
+        Car mapped = modelMapper.map(dto, Car.class);
+
+        assertEquals(mapped.getYearOfProduction(), car.getYearOfProduction());
+        assertEquals(mapped.getPrice(), car.getPrice());
+        assertSame(model, car.getModel());
+        assertSame(brand, car.getBrand());
+        assertSame(user, car.getUser());
+        assertNull(car.getId());
+        assertEquals(mapped.isNew(), car.isNew());
+    }
+}
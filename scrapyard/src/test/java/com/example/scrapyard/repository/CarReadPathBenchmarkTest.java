@@ -0,0 +1,138 @@
+package com.example.scrapyard.repository;
+
+import com.example.scrapyard.domain.CarResponse;
+import com.example.scrapyard.model.Brand;
+import com.example.scrapyard.model.Car;
+import com.example.scrapyard.model.Model;
+import com.example.scrapyard.model.UserEntity;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Entity + ModelMapper read path against the projection path on 100k cars, run with -Dbenchmark=true.
+ * Prints throughput and bytes allocated per page of 50 cars and per car by id; it asserts nothing about speed.
+ * H2 answers a keyset page by scanning the cars of the joined brand, so pages cost tens of milliseconds at this
+ * size and the iteration counts are kept low enough for a run of about two minutes.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties", properties = {
+        "spring.datasource.url=jdbc:h2:mem:car-read-benchmark;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "spring.sql.init.mode=never"})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class CarReadPathBenchmarkTest {
+    private static final int CARS = 100_000;
+    private static final int PAGE_SIZE = 50;
+    private static final int WARMUP = 50;
+    private static final int ITERATIONS = 200;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private BrandRepository brandRepository;
+
+    @Autowired
+    private ModelRepository modelRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // the mapper the read paths used before
+    private final ModelMapper modelMapper = new ModelMapper();
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate readOnly;
+    private final List<UUID> ids = new ArrayList<>(CARS);
+
+    @BeforeAll
+    void seed() {
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        UUID brandId = brandRepository.save(Brand.builder().name("Benchmark").build()).getId();
+        UUID modelId = modelRepository.save(Model.builder().name("Benchmark").build()).getId();
+        UUID userId = userRepository.save(UserEntity.builder().username("benchmark").passwordHash("x").build()).getId();
+        List<Object[]> rows = new ArrayList<>(CARS);
+        for (int i = 0; i < CARS; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            rows.add(new Object[]{id, brandId, modelId, userId, 1950 + i % 70, 1000.0 + i % 5000});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO car (id, brand_id, model_id, user_id, year_of_production, price) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    @Test
+    void listingPage() {
+        // what the listing did before: managed entities with brand and model fetched, then ModelMapper
+        measure("GET /car page, entities + ModelMapper", () -> readOnly.execute(status -> entityManager
+                .createQuery("SELECT c FROM Car c JOIN FETCH c.brand JOIN FETCH c.model WHERE c.id > :after ORDER BY c.id", Car.class)
+                .setParameter("after", randomId())
+                .setMaxResults(PAGE_SIZE + 1)
+                .getResultList().stream()
+                .map(car -> modelMapper.map(car, CarResponse.class))
+                .toList()));
+        measure("GET /car page, projection", () -> readOnly.execute(status ->
+                carRepository.findResponses(CarSpecifications.idGreaterThan(randomId()), PAGE_SIZE + 1)));
+    }
+
+    @Test
+    void carById() {
+        measure("GET /car/{id}, entity + ModelMapper", () -> readOnly.execute(status -> entityManager
+                .createQuery("SELECT c FROM Car c JOIN FETCH c.brand JOIN FETCH c.model WHERE c.id = :id", Car.class)
+                .setParameter("id", randomId())
+                .getResultList().stream()
+                .map(car -> modelMapper.map(car, CarResponse.class))
+                .toList()));
+        measure("GET /car/{id}, projection", () -> readOnly.execute(status ->
+                carRepository.findResponseById(randomId()).stream().toList()));
+    }
+
+    private void measure(String name, Supplier<List<CarResponse>> request) {
+        for (int i = 0; i < WARMUP; i++)
+            request.get();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long started = System.nanoTime();
+        long cars = 0;
+        for (int i = 0; i < ITERATIONS; i++)
+            cars += request.get().size();
+        long elapsed = System.nanoTime() - started;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        System.out.printf("%-40s %10.0f requests/s %10d bytes/request %8.1f cars/request%n",
+                name, ITERATIONS / (elapsed / 1e9), allocated / ITERATIONS, (double) cars / ITERATIONS);
+        assertTrue(cars > 0);
+    }
+
+    private UUID randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.scrapyard.repository;
+
+import com.example.scrapyard.domain.CarFilter;
+import com.example.scrapyard.domain.CarResponse;
+import com.example.scrapyard.model.Brand;
+import com.example.scrapyard.model.Car;
+import com.example.scrapyard.model.Model;
+import com.example.scrapyard.model.UserEntity;
+import com.example.scrapyard.service.CarService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// runs the listing filters against the real database; brand, model and owners are new for every test, the year
+// and price filters are combined with one of them to stay clear of the other cars in the table
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+@TestPropertySource(locations = "classpath:application-test.properties")
+class CarSpecificationsTest {
+    @Autowired
+    private CarService carService;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private BrandRepository brandRepository;
+
+    @Autowired
+    private ModelRepository modelRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Brand brandX;
+    private Brand brandY;
+    private Model modelX;
+    private Model modelY;
+    private UserEntity owner;
+    private UserEntity otherOwner;
+    private UUID x2000;
+    private UUID x2005;
+    private UUID y2010;
+    private UUID y2015;
+
+    @BeforeEach
+    void setup() {
+        String suffix = UUID.randomUUID().toString();
+        brandX = brandRepository.save(Brand.builder().name("BrandX-" + suffix).build());
+        brandY = brandRepository.save(Brand.builder().name("BrandY-" + suffix).build());
+        modelX = modelRepository.save(Model.builder().name("ModelX-" + suffix).build());
+        modelY = modelRepository.save(Model.builder().name("ModelY-" + suffix).build());
+        owner = userRepository.save(UserEntity.builder().username("owner-" + suffix).passwordHash("xyz").build());
+        otherOwner = userRepository.save(UserEntity.builder().username("other-" + suffix).passwordHash("xyz").build());
+        // references inside one transaction, the model cascade would otherwise try to persist a detached model
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            x2000 = save(brandX, modelX, 2000, 1000, owner);
+            x2005 = save(brandX, modelX, 2005, 2000, owner);
+            y2010 = save(brandY, modelY, 2010, 3000, owner);
+            y2015 = save(brandY, modelY, 2015, 4000, otherOwner);
+        });
+    }
+
+    @DisplayName("brand -> only that brand's cars")
+    @Test
+    void whenFilteringByBrandOnlyItsCarsMatch() {
+        assertMatches(CarFilter.builder().brand(brandX.getName()).build(), x2000, x2005);
+    }
+
+    @DisplayName("model -> only that model's cars")
+    @Test
+    void whenFilteringByModelOnlyItsCarsMatch() {
+        assertMatches(CarFilter.builder().model(modelY.getName()).build(), y2010, y2015);
+    }
+
+    @DisplayName("owner -> only the cars that user added")
+    @Test
+    void whenFilteringByOwnerOnlyTheirCarsMatch() {
+        assertMatches(CarFilter.builder().owner(owner.getId()).build(), x2000, x2005, y2010);
+        assertMatches(CarFilter.builder().owner(otherOwner.getId()).build(), y2015);
+    }
+
+    @DisplayName("year bounds -> inclusive on both ends")
+    @Test
+    void whenFilteringByYearBoundsAreInclusive() {
+        assertMatches(CarFilter.builder().owner(owner.getId()).minYear(2005).build(), x2005, y2010);
+        assertMatches(CarFilter.builder().owner(owner.getId()).maxYear(2005).build(), x2000, x2005);
+        assertMatches(CarFilter.builder().owner(owner.getId()).minYear(2001).maxYear(2009).build(), x2005);
+    }
+
+    @DisplayName("price bounds -> inclusive on both ends")
+    @Test
+    void whenFilteringByPriceBoundsAreInclusive() {
+        assertMatches(CarFilter.builder().brand(brandY.getName()).minPrice(3000.0).build(), y2010, y2015);
+        assertMatches(CarFilter.builder().brand(brandY.getName()).maxPrice(3999.99).build(), y2010);
+        assertMatches(CarFilter.builder().brand(brandX.getName()).minPrice(1000.0).maxPrice(2000.0).build(), x2000, x2005);
+    }
+
+    @DisplayName("every filter at once -> only cars matching all of them")
+    @Test
+    void whenCombiningFiltersAllHaveToMatch() {
+        CarFilter filter = CarFilter.builder()
+                .brand(brandY.getName())
+                .model(modelY.getName())
+                .minYear(2010)
+                .maxYear(2020)
+                .minPrice(3500.0)
+                .maxPrice(5000.0)
+                .owner(otherOwner.getId())
+                .build();
+
+        assertMatches(filter, y2015);
+        assertMatches(CarFilter.builder().brand(brandX.getName()).model(modelY.getName()).build());
+    }
+
+    @DisplayName("no filter -> every car is counted")
+    @Test
+    void whenFilterIsEmptyAllCarsAreCounted() {
+        assertEquals(carRepository.count(), carService.countCars(new CarFilter()));
+    }
+
+    private void assertMatches(CarFilter filter, UUID... expected) {
+        Set<UUID> listed = carService.getCars(null, 100, filter).getContent().stream()
+                .map(CarResponse::getId)
+                .collect(Collectors.toSet());
+        assertEquals(Set.of(expected), listed);
+        assertEquals(expected.length, carService.countCars(filter));
+    }
+
+    private UUID save(Brand brand, Model model, int year, double price, UserEntity user) {
+        return carRepository.save(Car.builder()
+                .brand(brandRepository.getReferenceById(brand.getId()))
+                .model(modelRepository.getReferenceById(model.getId()))
+                .user(userRepository.getReferenceById(user.getId()))
+                .yearOfProduction(year)
+                .price(price)
+                .build()).getId();
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.scrapyard.service;
+
+import com.example.scrapyard.api.exceptions.BrandNotFoundException;
+import com.example.scrapyard.api.exceptions.CarIntakeFullException;
+import com.example.scrapyard.domain.CarBatchResponse;
+import com.example.scrapyard.domain.CarDTO;
+import com.example.scrapyard.domain.CarIntakeStatus;
+import com.example.scrapyard.repository.BrandRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CarIntakeServiceTest {
+    private static final int SUBMITTERS = 4;
+
+    private final CarService carService = mock(CarService.class);
+    private final BrandRepository brandRepository = mock(BrandRepository.class);
+    private final Set<UUID> saved = ConcurrentHashMap.newKeySet();
+
+    @DisplayName("cars submitted while the intake shuts down -> every accepted car is written")
+    @Test
+    void whenFlushingEveryAcceptedCarIsWritten() throws Exception {
+        when(brandRepository.findIdByName(anyString())).thenReturn(Optional.of(UUID.randomUUID()));
+        when(carService.saveCarsWithIds(anyList())).thenAnswer(invocation -> {
+            List<PendingCar> cars = invocation.getArgument(0);
+            List<UUID> ids = cars.stream().map(PendingCar::getId).toList();
+            saved.addAll(ids);
+            return new CarBatchResponse(ids, List.of());
+        });
+        CarIntakeServiceImpl intake = intake(100_000);
+        intake.start();
+
+        // each submitter keeps going until the intake turns it away
+        List<CompletableFuture<List<UUID>>> submitters = new ArrayList<>();
+        for (int i = 0; i < SUBMITTERS; i++)
+            submitters.add(CompletableFuture.supplyAsync(() -> submitUntilRejected(intake)));
+        Thread.sleep(50);
+        intake.flush();
+
+        Set<UUID> accepted = ConcurrentHashMap.newKeySet();
+        for (CompletableFuture<List<UUID>> submitter : submitters)
+            accepted.addAll(submitter.get(5, TimeUnit.SECONDS));
+        assertFalse(accepted.isEmpty());
+        assertEquals(accepted, saved);
+    }
+
+    @DisplayName("unknown brand -> refused at submit, nothing queued")
+    @Test
+    void whenBrandIsUnknownSubmitIsRefused() {
+        when(brandRepository.findIdByName("Nope")).thenReturn(Optional.empty());
+        CarIntakeServiceImpl intake = intake(10);
+        intake.start();
+
+        assertThrows(BrandNotFoundException.class, () -> intake.submit(car("Nope")));
+    }
+
+    @DisplayName("batch failing as a whole -> cars retried one by one, only the bad one fails")
+    @Test
+    void whenBatchFailsCarsAreRetriedOneByOne() throws Exception {
+        when(brandRepository.findIdByName(anyString())).thenReturn(Optional.of(UUID.randomUUID()));
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        when(carService.saveCarsWithIds(anyList())).thenAnswer(invocation -> {
+            List<PendingCar> cars = invocation.getArgument(0);
+            batchSizes.add(cars.size());
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            if (cars.stream().anyMatch(car -> car.getCar().getPrice() < 0))
+                throw new IllegalStateException("constraint violated");
+            List<UUID> ids = cars.stream().map(PendingCar::getId).toList();
+            saved.addAll(ids);
+            return new CarBatchResponse(ids, List.of());
+        });
+        CarIntakeServiceImpl intake = intake(10);
+        intake.start();
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("owner", null));
+        UUID first;
+        UUID good;
+        UUID bad;
+        try {
+            first = intake.submit(car("Ford"));
+            // queued while the writer is busy with the first car so both land in the next batch
+            assertTrue(writing.await(5, TimeUnit.SECONDS));
+            good = intake.submit(car("Ford"));
+            CarDTO badCar = car("Ford");
+            badCar.setPrice(-1);
+            bad = intake.submit(badCar);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+        release.countDown();
+
+        intake.flush();
+
+        assertEquals(List.of(1, 2, 1, 1), batchSizes);
+        assertEquals(Set.of(first, good), saved);
+        assertEquals(CarIntakeStatus.State.FAILED, intake.getStatus(bad).orElseThrow().getState());
+    }
+
+    private CarIntakeServiceImpl intake(int queueCapacity) {
+        return new CarIntakeServiceImpl(carService, brandRepository, new SimpleMeterRegistry(),
+                queueCapacity, 50, 1, Duration.ofMinutes(1), Duration.ofSeconds(30));
+    }
+
+    private static CarDTO car(String brand) {
+        return CarDTO.builder().brand(brand).model("Focus").yearOfProduction(2001).price(1000).build();
+    }
+
+    private static List<UUID> submitUntilRejected(CarIntakeServiceImpl intake) {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("owner", null));
+        CarDTO car = car("Ford");
+        List<UUID> accepted = new ArrayList<>();
+        try {
+            while (true)
+                accepted.add(intake.submit(car));
+        } catch (CarIntakeFullException e) {
+            return accepted;
+        } catch (BrandNotFoundException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.scrapyard.service;
+
+import com.example.scrapyard.auth.JwtGenerator;
+import com.example.scrapyard.domain.CarDTO;
+import com.example.scrapyard.model.Brand;
+import com.example.scrapyard.model.CarPriceTotals;
+import com.example.scrapyard.model.UserEntity;
+import com.example.scrapyard.repository.BrandRepository;
+import com.example.scrapyard.repository.CarPriceTotalsRepository;
+import com.example.scrapyard.repository.CarRepository;
+import com.example.scrapyard.repository.UserRepository;
+import com.google.gson.Gson;
+import com.google.gson.JsonParser;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// runs against the real database, the totals row has to follow every car insert and delete
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+@TestPropertySource(locations = "classpath:application-test.properties")
+@AutoConfigureMockMvc
+class CarTotalsReconcilerTest {
+    private static final double PRICE = 1200.25;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtGenerator jwtGenerator;
+
+    @Autowired
+    private BrandRepository brandRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private CarPriceTotalsRepository carPriceTotalsRepository;
+
+    @Autowired
+    private CarTotalsReconciler reconciler;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Gson gson = new Gson();
+    private String username;
+    private CarDTO carDTO;
+
+    @BeforeEach
+    void setup() {
+        String suffix = UUID.randomUUID().toString();
+        username = "owner-" + suffix;
+        userRepository.save(UserEntity.builder().username(username).passwordHash("xyz").build());
+        Brand brand = brandRepository.save(Brand.builder().name("Brand-" + suffix).build());
+        carDTO = CarDTO.builder()
+                .brand(brand.getName())
+                .model("Model-" + suffix)
+                .price(PRICE)
+                .yearOfProduction(2001)
+                .build();
+        // start from totals that match the table
+        reconciler.reconcile();
+    }
+
+    @DisplayName("cars saved and deleted -> /car/sum and the count follow without a scan")
+    @Test
+    void whenCarsAreSavedAndDeletedTotalsFollow() throws Exception {
+        double sumBefore = sum();
+        long countBefore = totals().getCarCount();
+
+        UUID first = createCar();
+        createCar();
+        assertEquals(sumBefore + 2 * PRICE, sum(), 0.001);
+        assertEquals(countBefore + 2, totals().getCarCount());
+
+        mockMvc.perform(delete("/car/{id}", first)
+                        .header("Authorization", "Bearer " + jwtGenerator.createTestToken(username, true))
+                        .header("guid", UUID.randomUUID()))
+                .andExpect(status().is2xxSuccessful());
+        assertEquals(sumBefore + PRICE, sum(), 0.001);
+        assertEquals(countBefore + 1, totals().getCarCount());
+        assertEquals(carRepository.count(), totals().getCarCount());
+    }
+
+    @DisplayName("totals row drifted -> reconcile resets it and counts the drift")
+    @Test
+    void whenTotalsDriftReconcileResetsThem() throws Exception {
+        createCar();
+        double driftsBefore = meterRegistry.get("scrapyard.cars.totals.drift.detected").counter().count();
+        jdbcTemplate.update("UPDATE car_price_totals SET car_count = car_count + 3, price_sum = price_sum - 500 WHERE id = ?",
+                CarPriceTotals.ROW_ID);
+
+        reconciler.reconcile();
+
+        assertEquals(carRepository.count(), totals().getCarCount());
+        assertEquals(carRepository.computeTotals().getSum(), totals().getPriceSum(), 0.001);
+        assertEquals(carRepository.computeTotals().getSum(), sum(), 0.001);
+        assertEquals(driftsBefore + 1, meterRegistry.get("scrapyard.cars.totals.drift.detected").counter().count());
+    }
+
+    @DisplayName("totals row missing -> created from the car table, created again is a no-op")
+    @Test
+    void whenTotalsRowIsMissingItIsCreatedFromTheTable() throws Exception {
+        createCar();
+        carPriceTotalsRepository.deleteById(CarPriceTotals.ROW_ID);
+
+        reconciler.createRow();
+        reconciler.createRow();
+
+        assertEquals(carRepository.count(), totals().getCarCount());
+        assertEquals(carRepository.computeTotals().getSum(), totals().getPriceSum(), 0.001);
+    }
+
+    @DisplayName("actuator -> health is open, the drift and totals metrics need an admin")
+    @Test
+    void whenReadingActuatorOnlyHealthIsPublic() throws Exception {
+        mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/metrics/scrapyard.cars.totals.drift.detected"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/metrics/scrapyard.cars.totals.drift.detected")
+                        .header("Authorization", "Bearer " + jwtGenerator.createTestToken(username)))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/metrics/scrapyard.cars.totals.drift.detected")
+                        .header("Authorization", "Bearer " + jwtGenerator.createTestToken(username, true)))
+                .andExpect(status().isOk());
+    }
+
+    private CarPriceTotals totals() {
+        return carPriceTotalsRepository.findById(CarPriceTotals.ROW_ID).orElseThrow();
+    }
+
+    private double sum() throws Exception {
+        String body = mockMvc.perform(get("/car/sum")
+                        .header("Authorization", "Bearer " + jwtGenerator.createTestToken(username, true))
+                        .header("guid", UUID.randomUUID()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return JsonParser.parseString(body).getAsJsonObject().get("sum").getAsDouble();
+    }
+
+    private UUID createCar() throws Exception {
+        String location = mockMvc.perform(post("/car")
+                        .header("Authorization", "Bearer " + jwtGenerator.createTestToken(username))
+                        .header("guid", UUID.randomUUID())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(gson.toJson(carDTO))
+                        .characterEncoding("utf-8"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getHeader("Location");
+        return UUID.fromString(location.substring(location.lastIndexOf('/') + 1));
+    }
+}
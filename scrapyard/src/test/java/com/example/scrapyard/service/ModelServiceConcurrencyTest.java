@@ -0,0 +1,75 @@
+package com.example.scrapyard.service;
+
+import com.example.scrapyard.model.Model;
+import com.example.scrapyard.repository.ModelRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties")
+class ModelServiceConcurrencyTest {
+    private static final int THREADS = 16;
+    private static final int MODELS = 40;
+    private static final int CALLS_PER_THREAD = 200;
+
+    @Autowired
+    private ModelService modelService;
+
+    @Autowired
+    private ModelRepository modelRepository;
+
+    @DisplayName("getOrCreateModelId from many threads -> one row and one id per model")
+    @Test
+    void concurrentGetOrCreateNeverDuplicatesModels(TestReporter reporter) throws Exception {
+        String prefix = "Stress-" + UUID.randomUUID() + "-";
+        Map<String, Set<UUID>> idsByName = new ConcurrentHashMap<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int offset = t;
+            workers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                    String name = prefix + (i + offset) % MODELS;
+                    UUID id = modelService.getOrCreateModelId(name);
+                    idsByName.computeIfAbsent(name, n -> ConcurrentHashMap.newKeySet()).add(id);
+                }
+                return null;
+            }));
+        }
+        long started = System.nanoTime();
+        start.countDown();
+        for (Future<?> worker : workers)
+            worker.get();
+        long elapsedNanos = System.nanoTime() - started;
+        executor.shutdown();
+        reporter.publishEntry("calls/s", String.valueOf(THREADS * CALLS_PER_THREAD * 1_000_000_000L / elapsedNanos));
+
+        Map<String, Long> rowsByName = modelRepository.findAll().stream()
+                .map(Model::getName)
+                .filter(name -> name != null && name.startsWith(prefix))
+                .collect(Collectors.groupingBy(name -> name, Collectors.counting()));
+        assertEquals(MODELS, rowsByName.size());
+        rowsByName.forEach((name, rows) -> assertEquals(1, rows, name));
+        idsByName.forEach((name, ids) -> assertEquals(1, ids.size(), name));
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.scrapyard.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+    private static final int CALLERS = 8;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SingleFlight<String, Integer> singleFlight = new SingleFlight<>("test", Duration.ofSeconds(5), meterRegistry);
+    private final AtomicInteger loads = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @DisplayName("concurrent calls for one key -> one load, same result for all")
+    @Test
+    void whenCallsOverlapLoadRunsOnce() throws Exception {
+        List<CompletableFuture<Integer>> calls = callConcurrently(() -> {
+            loads.incrementAndGet();
+            await();
+            return 42;
+        });
+
+        for (CompletableFuture<Integer> call : calls)
+            assertEquals(42, call.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+        assertEquals(CALLERS - 1, meterRegistry.get("scrapyard.singleflight.calls").tag("result", "coalesced").counter().count());
+    }
+
+    @DisplayName("load fails -> every waiting call gets the exception, next call loads again")
+    @Test
+    void whenLoadFailsAllCallsFail() throws Exception {
+        List<CompletableFuture<Integer>> calls = callConcurrently(() -> {
+            loads.incrementAndGet();
+            await();
+            throw new IllegalStateException("database down");
+        });
+
+        for (CompletableFuture<Integer> call : calls) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> call.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+        }
+        assertEquals(1, loads.get());
+        assertEquals(7, singleFlight.execute("key", () -> 7));
+        assertEquals(2, meterRegistry.get("scrapyard.singleflight.calls").tag("result", "executed").counter().count());
+    }
+
+    @DisplayName("load in flight hangs -> a waiting call gives up after max wait and runs its own load")
+    @Test
+    void whenLoadHangsWaitingCallRunsItsOwn() throws Exception {
+        SingleFlight<String, Integer> impatient = new SingleFlight<>("impatient", Duration.ofMillis(50), meterRegistry);
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<Integer> hung = CompletableFuture.supplyAsync(() -> impatient.execute("key", () -> {
+            started.countDown();
+            await();
+            return 1;
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertEquals(2, impatient.execute("key", () -> 2));
+
+        release.countDown();
+        assertEquals(1, hung.get(5, TimeUnit.SECONDS));
+        assertEquals(1, meterRegistry.get("scrapyard.singleflight.calls")
+                .tag("name", "impatient").tag("result", "timed-out").counter().count());
+    }
+
+    // starts all callers, lets the load finish once the others are waiting for it
+    private List<CompletableFuture<Integer>> callConcurrently(Supplier<Integer> load) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<CompletableFuture<Integer>> calls = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++)
+                calls.add(CompletableFuture.supplyAsync(() -> singleFlight.execute("key", load), executor));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (meterRegistry.get("scrapyard.singleflight.calls").tag("result", "coalesced").counter().count() < CALLERS - 1
+                    && System.nanoTime() < deadline)
+                Thread.sleep(10);
+            release.countDown();
+            CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).handle((result, e) -> null).join();
+            return calls;
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        }
+    }
+
+    private void await() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}